@@ -1,14 +1,22 @@
 package com.community.goals;
 
 import com.community.goals.commands.*;
+import com.community.goals.features.AutoDepositManager;
 import com.community.goals.features.BorderExpansionManager;
 import com.community.goals.features.BorderManagerRegistry;
+import com.community.goals.features.ChunkPregenerator;
+import com.community.goals.features.ContributionLeaderboard;
 import com.community.goals.features.HelpBookManager;
 import com.community.goals.features.ProgressAnnouncementManager;
+import com.community.goals.features.RegionTrimmer;
 import com.community.goals.gui.GoalGuiManager;
 import com.community.goals.logic.GoalProgressTracker;
 import com.community.goals.logic.GoalQueueManager;
+import com.community.goals.logic.ActiveGoalIndex;
+import com.community.goals.logic.DepositRouter;
 import com.community.goals.logic.TurnInHandler;
+import com.community.goals.logic.TurnInJournal;
+import com.community.goals.logic.TurnInRateLimiter;
 import com.community.goals.npc.FancyNpcManager;
 import com.community.goals.npc.NPCInteractionHandler;
 import com.community.goals.placeholders.GoalExpansion;
@@ -29,12 +37,26 @@ public class CommunityGoalsPlugin extends JavaPlugin {
     private ConfigManager configManager;
     private BorderManagerRegistry borderRegistry;
     private ProgressAnnouncementManager announcementManager;
+    private ChunkPregenerator chunkPregenerator;
+    private RegionTrimmer regionTrimmer;
     private FancyNpcManager npcManager;
     private NPCInteractionHandler npcInteractionHandler;
     private TurnInHandler turnInHandler;
+    private TurnInJournal turnInJournal;
+    private TurnInRateLimiter turnInRateLimiter;
+    private DepositRouter depositRouter;
     private GoalGuiManager goalGuiManager;
     private GoalQueueManager goalQueueManager;
+    private ActiveGoalIndex activeGoalIndex;
     private HelpBookManager helpBookManager;
+    private AutoDepositManager autoDepositManager;
+
+    @Override
+    public void onLoad() {
+        // Region files can only be trimmed before their worlds are loaded
+        RegionTrimmer.applyPendingPlans(Paths.get(getDataFolder().getAbsolutePath(), "data").toString(),
+            Paths.get(getDataFolder().getAbsolutePath(), "config.yml").toString(), getLogger());
+    }
 
     @Override
     public void onEnable() {
@@ -51,38 +73,78 @@ public class CommunityGoalsPlugin extends JavaPlugin {
             String configPath = Paths.get(getDataFolder().getAbsolutePath(), "config.yml").toString();
             configManager = new ConfigManager(configPath, getLogger());
 
+            String dataPath = Paths.get(getDataFolder().getAbsolutePath(), "data").toString();
+
             // Initialize border managers
-            borderRegistry = BorderManagerRegistry.fromConfig(configManager, getLogger());
+            borderRegistry = BorderManagerRegistry.fromConfig(configManager, dataPath, getLogger());
+            // Placeholders read border snapshots; pick up border changes made by anything else once a second
+            getServer().getScheduler().runTaskTimer(this, borderRegistry::syncSnapshots, 20L, 20L);
 
             // Initialize persistence
-            String dataPath = Paths.get(getDataFolder().getAbsolutePath(), "data").toString();
             persistenceManager = new PersistenceManager(dataPath, getLogger(), borderRegistry.getDefaultWorld());
 
             // Initialize core logic
             goalProgressTracker = new GoalProgressTracker(persistenceManager);
-            turnInHandler = new TurnInHandler(goalProgressTracker);
+            turnInJournal = new TurnInJournal(dataPath, getLogger());
+            goalProgressTracker.setJournal(turnInJournal);
+            turnInHandler = new TurnInHandler(goalProgressTracker, turnInJournal);
             boolean queueEnabled = configManager.getBoolean("goals.queue-enabled", false);
             goalQueueManager = new GoalQueueManager(goalProgressTracker, persistenceManager, queueEnabled, borderRegistry.getDefaultWorld());
-            goalGuiManager = new GoalGuiManager(goalProgressTracker, turnInHandler, goalQueueManager);
+            // Registered first so every other listener sees the updated index
+            activeGoalIndex = new ActiveGoalIndex(goalProgressTracker, goalQueueManager);
+            goalProgressTracker.addListener(activeGoalIndex);
+            goalQueueManager.addListener(activeGoalIndex);
+            turnInRateLimiter = new TurnInRateLimiter(
+                configManager.getBoolean("turn-in-rate-limit.enabled", true),
+                configManager.getInt("turn-in-rate-limit.burst", 5),
+                configManager.getDouble("turn-in-rate-limit.refill-per-second", 2.0));
+            depositRouter = new DepositRouter(activeGoalIndex, turnInHandler);
+            goalProgressTracker.addListener(depositRouter);
+            goalGuiManager = new GoalGuiManager(this, goalProgressTracker, turnInHandler, activeGoalIndex,
+                depositRouter, turnInRateLimiter, configManager.getInt("gui.max-refreshes-per-second", 4));
+            goalQueueManager.addListener(goalGuiManager::requestWorldRefresh);
             
             // Register goal completion listener for border expansion and announcements
             goalProgressTracker.addListener(new GoalCompletionHandler());
 
             // Initialize features
             announcementManager = new ProgressAnnouncementManager();
+            chunkPregenerator = new ChunkPregenerator(this, goalProgressTracker, borderRegistry, persistenceManager,
+                configManager.getBoolean("pregeneration.enabled", true),
+                configManager.getDouble("pregeneration.start-at-percent", 80.0),
+                configManager.getDouble("pregeneration.max-mspt", 40.0),
+                configManager.getInt("pregeneration.chunks-per-tick", 4),
+                configManager.getInt("pregeneration.max-in-flight", 16));
+            goalProgressTracker.addListener(chunkPregenerator);
+            regionTrimmer = new RegionTrimmer(this, goalProgressTracker, borderRegistry, dataPath);
+            goalProgressTracker.addListener(regionTrimmer);
+            borderRegistry.addListener(regionTrimmer);
 
             // Initialize NPC system
             npcManager = new FancyNpcManager(this);
-            npcInteractionHandler = new NPCInteractionHandler(npcManager, goalProgressTracker, goalGuiManager);
+            npcInteractionHandler = new NPCInteractionHandler(npcManager, goalProgressTracker, goalGuiManager, turnInRateLimiter);
             helpBookManager = new HelpBookManager(this);
+            autoDepositManager = new AutoDepositManager(this, goalProgressTracker, depositRouter, turnInJournal,
+                turnInRateLimiter, configManager.getBoolean("auto-deposit.enabled", true));
+
+            // Settle turn-ins interrupted by a crash once completion handling is in place
+            turnInJournal.recover(goalProgressTracker);
+
+            // Turn-ins only mark goals dirty; write them out in batches
+            long saveTicks = Math.max(1, configManager.getInt("persistence.auto-save-interval", 5)) * 60L * 20L;
+            getServer().getScheduler().runTaskTimer(this, goalProgressTracker::flushDirtyGoals, saveTicks, saveTicks);
 
             // Register commands
             registerCommands();
 
             // Register event listeners
+            getServer().getPluginManager().registerEvents(npcManager.getAvailabilityListener(), this);
             getServer().getPluginManager().registerEvents(npcInteractionHandler, this);
             getServer().getPluginManager().registerEvents(goalGuiManager, this);
             getServer().getPluginManager().registerEvents(helpBookManager, this);
+            getServer().getPluginManager().registerEvents(turnInJournal, this);
+            getServer().getPluginManager().registerEvents(turnInRateLimiter, this);
+            getServer().getPluginManager().registerEvents(autoDepositManager, this);
 
             registerPlaceholders();
 
@@ -98,9 +160,22 @@ public class CommunityGoalsPlugin extends JavaPlugin {
     public void onDisable() {
         getLogger().info("Disabling Community Goals plugin...");
 
+        // Credit pickups still waiting for the next tick
+        if (autoDepositManager != null) {
+            autoDepositManager.flush();
+        }
+
         // Save all data on disable
-        if (persistenceManager != null && goalProgressTracker != null) {
-            persistenceManager.saveGoals(goalProgressTracker.getAllGoals());
+        if (goalProgressTracker != null) {
+            goalProgressTracker.saveAllGoals();
+        }
+
+        if (turnInJournal != null) {
+            turnInJournal.close();
+        }
+
+        if (chunkPregenerator != null) {
+            chunkPregenerator.close();
         }
 
         // Clean up NPC system
@@ -116,11 +191,11 @@ public class CommunityGoalsPlugin extends JavaPlugin {
      */
     private void registerCommands() {
         // Player commands
-        GoalPlayerCommand playerCommand = new GoalPlayerCommand(goalProgressTracker, persistenceManager, turnInHandler);
+        GoalPlayerCommand playerCommand = new GoalPlayerCommand(goalProgressTracker, persistenceManager, turnInHandler, depositRouter, turnInRateLimiter, autoDepositManager);
         getCommand("goal").setExecutor(playerCommand);
 
         // Admin commands
-        GoalAdminCommand adminCommand = new GoalAdminCommand(goalProgressTracker, persistenceManager, borderRegistry, configManager, goalQueueManager, getLogger());
+        GoalAdminCommand adminCommand = new GoalAdminCommand(goalProgressTracker, persistenceManager, borderRegistry, configManager, goalQueueManager, regionTrimmer, getLogger());
         getCommand("goal-admin").setExecutor(adminCommand);
 
         // NPC commands
@@ -138,7 +213,11 @@ public class CommunityGoalsPlugin extends JavaPlugin {
             return;
         }
 
-        new GoalExpansion(this, goalProgressTracker, goalQueueManager, borderRegistry).register();
+        ContributionLeaderboard leaderboard = new ContributionLeaderboard(this, goalProgressTracker);
+        goalProgressTracker.addListener(leaderboard);
+        GoalExpansion goalExpansion = new GoalExpansion(this, activeGoalIndex, borderRegistry, leaderboard);
+        goalProgressTracker.addListener(goalExpansion);
+        goalExpansion.register();
         new WorldBorderExpansion(this, borderRegistry).register();
         getLogger().info("Registered PlaceholderAPI expansions: goal, worldborder.");
     }
@@ -190,7 +269,7 @@ public class CommunityGoalsPlugin extends JavaPlugin {
         public void onProgressUpdated(Goal goal, long previousProgress, long amountAdded) {
             // Handle progress updates if needed
             if (goalGuiManager != null) {
-                goalGuiManager.refreshOpenGoalsMenus();
+                goalGuiManager.requestGoalRefresh(goal);
             }
         }
 
@@ -210,7 +289,7 @@ public class CommunityGoalsPlugin extends JavaPlugin {
                     ? goal.getRewardExpansion()
                     : borderManager.getBorderConfig().getExpansionAmount();
 
-                if (borderManager.expandBorder(expansionAmount)) {
+                if (borderManager.expandBorder(expansionAmount, goal.getId())) {
                     BorderExpansionManager.BorderInfo afterInfo = borderManager.getInfo();
                     getLogger().info("Border after expansion: " + afterInfo.currentSize);
 
@@ -232,14 +311,14 @@ public class CommunityGoalsPlugin extends JavaPlugin {
                 goalQueueManager.handleGoalCompleted(goal);
             }
             goalProgressTracker.deleteGoal(goal.getId());
-            goalGuiManager.refreshOpenGoalsMenus();
+            goalGuiManager.requestWorldRefresh(goal.getWorldName());
         }
 
         @Override
         public void onGoalCreated(Goal goal) {
             // Handle goal creation if needed
             if (goalGuiManager != null) {
-                goalGuiManager.refreshOpenGoalsMenus();
+                goalGuiManager.requestWorldRefresh(goal.getWorldName());
             }
         }
 
@@ -247,7 +326,8 @@ public class CommunityGoalsPlugin extends JavaPlugin {
         public void onGoalDeleted(Goal goal) {
             // Handle goal deletion if needed
             if (goalGuiManager != null) {
-                goalGuiManager.refreshOpenGoalsMenus();
+                goalGuiManager.forgetGoal(goal.getId());
+                goalGuiManager.requestWorldRefresh(goal.getWorldName());
             }
         }
 
@@ -255,7 +335,7 @@ public class CommunityGoalsPlugin extends JavaPlugin {
         public void onGoalUpdated(Goal goal) {
             // Handle goal updates if needed
             if (goalGuiManager != null) {
-                goalGuiManager.refreshOpenGoalsMenus();
+                goalGuiManager.requestWorldRefresh(goal.getWorldName());
             }
         }
     }
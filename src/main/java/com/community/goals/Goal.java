@@ -1,5 +1,10 @@
 package com.community.goals;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
 /**
  * Represents a community goal with progress tracking
  */
@@ -14,6 +19,14 @@ public class Goal {
     private State state;
     private long createdAt;
     private long completedAt;
+    private final MaterialRequirements materialRequirements;
+    private final ItemAcceptanceRules acceptanceRules;
+    private ItemMatcher itemMatcher;
+    private int matcherRulesRevision = -1;
+    private int matcherRequirementsRevision = -1;
+    private long contributionCap;
+    private long version;
+    private final Map<UUID, Long> contributions;
 
     public Goal(String id, String name, String description, long targetProgress, String worldName) {
         this.id = id;
@@ -26,6 +39,9 @@ public class Goal {
         this.createdAt = System.currentTimeMillis();
         this.completedAt = 0;
         this.rewardExpansion = 0;
+        this.materialRequirements = new MaterialRequirements();
+        this.acceptanceRules = new ItemAcceptanceRules();
+        this.contributions = new HashMap<>();
     }
 
     public String getId() {
@@ -50,6 +66,7 @@ public class Goal {
 
     public void addProgress(long amount) {
         this.currentProgress += amount;
+        version++;
         if (currentProgress >= targetProgress) {
             complete();
         }
@@ -61,6 +78,7 @@ public class Goal {
 
     public void setTargetProgress(long targetProgress) {
         this.targetProgress = targetProgress;
+        version++;
     }
 
     public double getRewardExpansion() {
@@ -69,6 +87,7 @@ public class Goal {
 
     public void setRewardExpansion(double rewardExpansion) {
         this.rewardExpansion = rewardExpansion;
+        version++;
     }
 
     public State getState() {
@@ -77,6 +96,7 @@ public class Goal {
 
     public void setState(State state) {
         this.state = state;
+        version++;
     }
 
     public double getProgressPercentage() {
@@ -92,6 +112,15 @@ public class Goal {
         this.state = State.COMPLETED;
         this.completedAt = System.currentTimeMillis();
         this.currentProgress = targetProgress;
+        version++;
+    }
+
+    /**
+     * Incremented on every change to progress, target, reward, state or cap,
+     * so rendered views can tell whether they are stale
+     */
+    public long getVersion() {
+        return version;
     }
 
     public long getCreatedAt() {
@@ -102,6 +131,71 @@ public class Goal {
         return completedAt;
     }
 
+    /**
+     * Per-material targets and point values (empty for single-counter goals)
+     */
+    public MaterialRequirements getMaterialRequirements() {
+        return materialRequirements;
+    }
+
+    /**
+     * Explicit item acceptance rules (materials, tags, model data, PDC keys)
+     */
+    public ItemAcceptanceRules getAcceptanceRules() {
+        return acceptanceRules;
+    }
+
+    /**
+     * Compiled matcher for the current rules and requirements, rebuilt only after they change
+     */
+    public ItemMatcher getItemMatcher() {
+        if (itemMatcher == null
+                || matcherRulesRevision != acceptanceRules.getRevision()
+                || matcherRequirementsRevision != materialRequirements.getRevision()) {
+            itemMatcher = ItemMatcher.compile(acceptanceRules, materialRequirements);
+            matcherRulesRevision = acceptanceRules.getRevision();
+            matcherRequirementsRevision = materialRequirements.getRevision();
+        }
+        return itemMatcher;
+    }
+
+    /**
+     * Maximum progress points a single player may contribute (0 = no cap)
+     */
+    public long getContributionCap() {
+        return contributionCap;
+    }
+
+    public void setContributionCap(long contributionCap) {
+        this.contributionCap = Math.max(0, contributionCap);
+        version++;
+    }
+
+    public long getContribution(UUID playerId) {
+        Long amount = contributions.get(playerId);
+        return amount == null ? 0 : amount;
+    }
+
+    public void addContribution(UUID playerId, long amount) {
+        if (playerId != null && amount > 0) {
+            contributions.merge(playerId, amount, Long::sum);
+        }
+    }
+
+    /**
+     * Points the player may still contribute, or Long.MAX_VALUE without a cap
+     */
+    public long getRemainingAllowance(UUID playerId) {
+        if (contributionCap <= 0 || playerId == null) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, contributionCap - getContribution(playerId));
+    }
+
+    public Map<UUID, Long> getContributions() {
+        return Collections.unmodifiableMap(contributions);
+    }
+
     @Override
     public String toString() {
         return "Goal{" +
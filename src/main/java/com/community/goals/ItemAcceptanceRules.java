@@ -0,0 +1,157 @@
+package com.community.goals;
+
+import org.bukkit.Material;
+
+import java.util.*;
+
+/**
+ * Explicit rules describing which items a goal accepts: materials, item tags,
+ * custom model data values and persistent data container keys.
+ * Rules are compiled into an {@link ItemMatcher} before use.
+ */
+public class ItemAcceptanceRules {
+    private static final String[][] LEGACY_KEYWORDS = {
+        {"diamond", "DIAMOND"},
+        {"iron", "IRON_INGOT"},
+        {"gold", "GOLD_INGOT"},
+        {"emerald", "EMERALD"},
+        {"coal", "COAL"},
+        {"wood", "OAK_LOG"},
+        {"log", "OAK_LOG"},
+        {"cobble", "COBBLESTONE"},
+        {"stone", "STONE"},
+        {"wheat", "WHEAT"},
+        {"carrot", "CARROT"},
+        {"potato", "POTATO"},
+        {"beef", "BEEF"},
+        {"pork", "PORKCHOP"},
+        {"chicken", "CHICKEN"},
+        {"fish", "COD"},
+        {"leather", "LEATHER"},
+        {"hide", "LEATHER"},
+        {"netherite", "NETHERITE_INGOT"},
+        {"blaze", "BLAZE_ROD"},
+        {"wart", "NETHER_WART"},
+        {"ghast", "GHAST_TEAR"},
+        {"ancient", "ANCIENT_DEBRIS"},
+        {"debris", "ANCIENT_DEBRIS"},
+        {"quartz", "QUARTZ"},
+        {"magma", "MAGMA_CREAM"}
+    };
+
+    private final Set<Material> materials = EnumSet.noneOf(Material.class);
+    private final Set<String> tags = new LinkedHashSet<>();
+    private final Set<Integer> customModelData = new LinkedHashSet<>();
+    private final Set<String> pdcKeys = new LinkedHashSet<>();
+    private int revision;
+
+    public Set<Material> getMaterials() {
+        return Collections.unmodifiableSet(materials);
+    }
+
+    public Set<String> getTags() {
+        return Collections.unmodifiableSet(tags);
+    }
+
+    public Set<Integer> getCustomModelData() {
+        return Collections.unmodifiableSet(customModelData);
+    }
+
+    public Set<String> getPdcKeys() {
+        return Collections.unmodifiableSet(pdcKeys);
+    }
+
+    public boolean addMaterial(Material material) {
+        return changed(materials.add(material));
+    }
+
+    public boolean removeMaterial(Material material) {
+        return changed(materials.remove(material));
+    }
+
+    /**
+     * Add an item tag key such as "minecraft:logs"
+     */
+    public boolean addTag(String tagKey) {
+        return changed(tags.add(normalizeKey(tagKey)));
+    }
+
+    public boolean removeTag(String tagKey) {
+        return changed(tags.remove(normalizeKey(tagKey)));
+    }
+
+    public boolean addCustomModelData(int value) {
+        return changed(customModelData.add(value));
+    }
+
+    public boolean removeCustomModelData(int value) {
+        return changed(customModelData.remove(value));
+    }
+
+    /**
+     * Add a persistent data container key such as "myplugin:custom_item"
+     */
+    public boolean addPdcKey(String key) {
+        return changed(pdcKeys.add(normalizeKey(key)));
+    }
+
+    public boolean removePdcKey(String key) {
+        return changed(pdcKeys.remove(normalizeKey(key)));
+    }
+
+    public void clear() {
+        materials.clear();
+        tags.clear();
+        customModelData.clear();
+        pdcKeys.clear();
+        revision++;
+    }
+
+    public boolean isEmpty() {
+        return materials.isEmpty() && tags.isEmpty() && customModelData.isEmpty() && pdcKeys.isEmpty();
+    }
+
+    /**
+     * Incremented on every change so compiled matchers know when to rebuild
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Best guess for goals created before acceptance rules existed.
+     * Tries the goal ID as a material name, then a fixed keyword table
+     * where more specific keywords are checked first.
+     */
+    public static Material legacyMaterialFor(String goalId) {
+        if (goalId == null) {
+            return null;
+        }
+        Material direct = Material.matchMaterial(goalId);
+        if (direct != null && direct.isItem()) {
+            return direct;
+        }
+        String id = goalId.toLowerCase(Locale.ROOT);
+        for (String[] entry : LEGACY_KEYWORDS) {
+            if (id.contains(entry[0])) {
+                return Material.valueOf(entry[1]);
+            }
+        }
+        return null;
+    }
+
+    private boolean changed(boolean result) {
+        if (result) {
+            revision++;
+        }
+        return result;
+    }
+
+    private static String normalizeKey(String key) {
+        String normalized = key.toLowerCase(Locale.ROOT);
+        if (normalized.startsWith("#")) {
+            normalized = normalized.substring(1);
+        }
+        return normalized.indexOf(':') < 0 ? "minecraft:" + normalized : normalized;
+    }
+}
@@ -0,0 +1,170 @@
+package com.community.goals;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Tag;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Compiled form of a goal's acceptance rules and material requirements.
+ * Materials and tags are flattened into an ordinal-indexed slot table, so
+ * the common case is one array read per stack; item meta is only inspected
+ * when custom model data or PDC constraints are configured.
+ *
+ * Slots 0..n-1 are the goal's material requirement slots. Slot n is the
+ * generic slot for items accepted by rules alone, worth 1 point each.
+ */
+public final class ItemMatcher {
+    public static final int REJECTED = -1;
+
+    private static final Material[] MATERIALS = Material.values();
+
+    private final int[] slotByOrdinal;
+    private final int genericSlot;
+    private final int[] customModelData;
+    private final NamespacedKey[] pdcKeys;
+    private final boolean checkMeta;
+    private final boolean acceptsAnything;
+
+    private ItemMatcher(int[] slotByOrdinal, int genericSlot, int[] customModelData,
+                        NamespacedKey[] pdcKeys, boolean acceptsAnything) {
+        this.slotByOrdinal = slotByOrdinal;
+        this.genericSlot = genericSlot;
+        this.customModelData = customModelData;
+        this.pdcKeys = pdcKeys;
+        this.checkMeta = customModelData.length > 0 || pdcKeys.length > 0;
+        this.acceptsAnything = acceptsAnything;
+    }
+
+    /**
+     * Compile rules and requirements into a matcher
+     */
+    @SuppressWarnings("deprecation")
+    public static ItemMatcher compile(ItemAcceptanceRules rules, MaterialRequirements requirements) {
+        int genericSlot = requirements.size();
+        int[] slots = new int[MATERIALS.length];
+        Arrays.fill(slots, REJECTED);
+
+        boolean anyMaterial = rules.getMaterials().isEmpty() && rules.getTags().isEmpty()
+            && (!rules.getCustomModelData().isEmpty() || !rules.getPdcKeys().isEmpty());
+        if (anyMaterial) {
+            for (Material material : MATERIALS) {
+                if (!material.isLegacy() && material.isItem() && !material.isAir()) {
+                    slots[material.ordinal()] = genericSlot;
+                }
+            }
+        }
+        for (Material material : rules.getMaterials()) {
+            slots[material.ordinal()] = genericSlot;
+        }
+        for (String tagKey : rules.getTags()) {
+            Tag<Material> tag = resolveTag(tagKey);
+            if (tag == null) {
+                continue;
+            }
+            for (Material material : tag.getValues()) {
+                slots[material.ordinal()] = genericSlot;
+            }
+        }
+        for (int i = 0; i < requirements.size(); i++) {
+            slots[requirements.getMaterial(i).ordinal()] = i;
+        }
+
+        boolean acceptsAnything = false;
+        for (int slot : slots) {
+            if (slot != REJECTED) {
+                acceptsAnything = true;
+                break;
+            }
+        }
+
+        int[] modelData = new int[rules.getCustomModelData().size()];
+        int index = 0;
+        for (Integer value : rules.getCustomModelData()) {
+            modelData[index++] = value;
+        }
+        Arrays.sort(modelData);
+
+        NamespacedKey[] keys = rules.getPdcKeys().stream()
+            .map(NamespacedKey::fromString)
+            .filter(key -> key != null)
+            .toArray(NamespacedKey[]::new);
+
+        return new ItemMatcher(slots, genericSlot, modelData, keys, acceptsAnything);
+    }
+
+    /**
+     * Resolve an item tag key such as "minecraft:logs"
+     */
+    public static Tag<Material> resolveTag(String tagKey) {
+        NamespacedKey key = NamespacedKey.fromString(tagKey.toLowerCase(Locale.ROOT));
+        if (key == null) {
+            return null;
+        }
+        return Bukkit.getTag(Tag.REGISTRY_ITEMS, key, Material.class);
+    }
+
+    /**
+     * Slot for a stack, or {@link #REJECTED}
+     */
+    public int slotOf(ItemStack item) {
+        if (item == null) {
+            return REJECTED;
+        }
+        int slot = slotByOrdinal[item.getType().ordinal()];
+        if (slot == REJECTED || !checkMeta) {
+            return slot;
+        }
+        return matchesMeta(item) ? slot : REJECTED;
+    }
+
+    /**
+     * Whether a material can be accepted at all (ignoring meta constraints)
+     */
+    public boolean accepts(Material material) {
+        return material != null && slotByOrdinal[material.ordinal()] != REJECTED;
+    }
+
+    public boolean acceptsAnything() {
+        return acceptsAnything;
+    }
+
+    /**
+     * Number of slots including the generic slot
+     */
+    public int getSlotCount() {
+        return genericSlot + 1;
+    }
+
+    public int getGenericSlot() {
+        return genericSlot;
+    }
+
+    @SuppressWarnings("deprecation")
+    private boolean matchesMeta(ItemStack item) {
+        if (!item.hasItemMeta()) {
+            return false;
+        }
+        ItemMeta meta = item.getItemMeta();
+        if (customModelData.length > 0) {
+            if (!meta.hasCustomModelData()
+                    || Arrays.binarySearch(customModelData, meta.getCustomModelData()) < 0) {
+                return false;
+            }
+        }
+        if (pdcKeys.length > 0) {
+            for (NamespacedKey key : pdcKeys) {
+                if (meta.getPersistentDataContainer().has(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,204 @@
+package com.community.goals;
+
+import org.bukkit.Material;
+
+import java.util.Arrays;
+
+/**
+ * Per-material targets, point weights and delivered counters for a goal.
+ * Counters live in parallel long[] arrays and are looked up through an
+ * ordinal-indexed slot table, so crediting a material never boxes.
+ *
+ * Item count arrays passed to {@link #deliver} and {@link #pointsFor} may carry
+ * one extra trailing slot for items accepted by rules alone, worth 1 point each.
+ */
+public class MaterialRequirements {
+    private static final int MATERIAL_COUNT = Material.values().length;
+    private static final int[] NO_SLOTS = new int[0];
+
+    private int[] slotByOrdinal = NO_SLOTS;
+    private Material[] materials = new Material[0];
+    private long[] targets = new long[0];
+    private long[] points = new long[0];
+    private long[] delivered = new long[0];
+    private int revision;
+
+    /**
+     * Get the slot index for a material, or -1 if it is not required
+     */
+    public int indexOf(Material material) {
+        if (material == null || slotByOrdinal.length == 0) {
+            return -1;
+        }
+        return slotByOrdinal[material.ordinal()];
+    }
+
+    /**
+     * Add or update a material requirement. A target of 0 means unlimited.
+     */
+    public void setRequirement(Material material, long target, long pointValue) {
+        if (material == null) {
+            throw new IllegalArgumentException("Material is required");
+        }
+        if (target < 0) {
+            throw new IllegalArgumentException("Target must be zero or positive");
+        }
+        if (pointValue < 1) {
+            throw new IllegalArgumentException("Points must be at least 1");
+        }
+
+        revision++;
+        int index = indexOf(material);
+        if (index >= 0) {
+            targets[index] = target;
+            points[index] = pointValue;
+            return;
+        }
+
+        if (slotByOrdinal.length == 0) {
+            slotByOrdinal = new int[MATERIAL_COUNT];
+            Arrays.fill(slotByOrdinal, -1);
+        }
+        int size = materials.length;
+        materials = Arrays.copyOf(materials, size + 1);
+        targets = Arrays.copyOf(targets, size + 1);
+        points = Arrays.copyOf(points, size + 1);
+        delivered = Arrays.copyOf(delivered, size + 1);
+        materials[size] = material;
+        targets[size] = target;
+        points[size] = pointValue;
+        slotByOrdinal[material.ordinal()] = size;
+    }
+
+    /**
+     * Remove a material requirement
+     */
+    public boolean removeRequirement(Material material) {
+        int index = indexOf(material);
+        if (index < 0) {
+            return false;
+        }
+
+        revision++;
+        int last = materials.length - 1;
+        slotByOrdinal[material.ordinal()] = -1;
+        if (index != last) {
+            materials[index] = materials[last];
+            targets[index] = targets[last];
+            points[index] = points[last];
+            delivered[index] = delivered[last];
+            slotByOrdinal[materials[index].ordinal()] = index;
+        }
+        materials = Arrays.copyOf(materials, last);
+        targets = Arrays.copyOf(targets, last);
+        points = Arrays.copyOf(points, last);
+        delivered = Arrays.copyOf(delivered, last);
+        if (last == 0) {
+            slotByOrdinal = NO_SLOTS;
+        }
+        return true;
+    }
+
+    /**
+     * Incremented when requirements are added or removed
+     */
+    public int getRevision() {
+        return revision;
+    }
+
+    public int size() {
+        return materials.length;
+    }
+
+    public boolean isEmpty() {
+        return materials.length == 0;
+    }
+
+    public Material getMaterial(int index) {
+        return materials[index];
+    }
+
+    public long getTarget(int index) {
+        return targets[index];
+    }
+
+    public long getPoints(int index) {
+        return points[index];
+    }
+
+    public long getDelivered(int index) {
+        return delivered[index];
+    }
+
+    public void setDelivered(int index, long amount) {
+        delivered[index] = Math.max(0, amount);
+    }
+
+    /**
+     * Items of this material that can still be accepted
+     */
+    public long getRemainingItems(int index) {
+        if (targets[index] <= 0) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, targets[index] - delivered[index]);
+    }
+
+    /**
+     * Record delivered items per slot and return the points they are worth
+     */
+    public long deliver(long[] itemCounts) {
+        int limit = Math.min(itemCounts.length, materials.length);
+        for (int i = 0; i < limit; i++) {
+            if (itemCounts[i] > 0) {
+                delivered[i] += itemCounts[i];
+            }
+        }
+        return pointsFor(itemCounts);
+    }
+
+    /**
+     * Points that the given per-slot item counts are worth
+     */
+    public long pointsFor(long[] itemCounts) {
+        long total = 0;
+        int limit = Math.min(itemCounts.length, materials.length);
+        for (int i = 0; i < limit; i++) {
+            if (itemCounts[i] > 0) {
+                total += itemCounts[i] * points[i];
+            }
+        }
+        if (itemCounts.length > materials.length && itemCounts[materials.length] > 0) {
+            total += itemCounts[materials.length];
+        }
+        return total;
+    }
+
+    /**
+     * Point value of a slot, including the trailing rules-only slot
+     */
+    public long getSlotPoints(int slot) {
+        return slot < materials.length ? points[slot] : 1;
+    }
+
+    /**
+     * Remaining items for a slot, including the trailing rules-only slot
+     */
+    public long getSlotRemainingItems(int slot) {
+        return slot < materials.length ? getRemainingItems(slot) : Long.MAX_VALUE;
+    }
+
+    /**
+     * Sum of all per-material targets weighted by points (0 if any material is unlimited)
+     */
+    public long getWeightedTarget() {
+        long total = 0;
+        for (int i = 0; i < materials.length; i++) {
+            if (targets[i] <= 0) {
+                return 0;
+            }
+            total += targets[i] * points[i];
+        }
+        return total;
+    }
+}
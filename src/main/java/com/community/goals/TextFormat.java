@@ -0,0 +1,152 @@
+package com.community.goals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Number and progress bar formatting for player-facing text. Values are
+ * written straight into reusable per-thread builders instead of going through
+ * {@link String#format}, and match what {@code %.Nf} printed before: half-up
+ * rounding of the shortest decimal form, with '.' as the decimal point.
+ */
+public final class TextFormat {
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1000L};
+    private static final double FAST_PATH_LIMIT = 1e9;
+    private static final double TIE_MARGIN = 1e-5;
+    private static final int BAR_SEGMENTS = 10;
+
+    private static final ThreadLocal<StringBuilder> LINE = ThreadLocal.withInitial(() -> new StringBuilder(128));
+    private static final ThreadLocal<StringBuilder> NUMBER = ThreadLocal.withInitial(() -> new StringBuilder(32));
+
+    private TextFormat() {
+    }
+
+    /**
+     * This thread's line builder, emptied. Build one message at a time with it
+     * and take the result with {@code toString()} before starting the next.
+     */
+    public static StringBuilder line() {
+        StringBuilder builder = LINE.get();
+        builder.setLength(0);
+        return builder;
+    }
+
+    /**
+     * A value with a fixed number of decimals (0-3), like {@code %.1f}
+     */
+    public static String fixed(double value, int decimals) {
+        StringBuilder builder = NUMBER.get();
+        builder.setLength(0);
+        return appendFixed(builder, value, decimals).toString();
+    }
+
+    /**
+     * A percentage with one decimal, like {@code %.1f}
+     */
+    public static String percent(double value) {
+        return fixed(value, 1);
+    }
+
+    /**
+     * Append a value with a fixed number of decimals (0-3), like {@code %.Nf}
+     */
+    public static StringBuilder appendFixed(StringBuilder builder, double value, int decimals) {
+        if (Double.isNaN(value)) {
+            return builder.append("NaN");
+        }
+        if (Double.isInfinite(value)) {
+            return builder.append(value > 0 ? "Infinity" : "-Infinity");
+        }
+        if (Double.doubleToRawLongBits(value) < 0) {
+            builder.append('-');
+            value = -value;
+        }
+
+        long scale = POWERS_OF_TEN[decimals];
+        double scaled = value * scale;
+        if (scaled >= FAST_PATH_LIMIT) {
+            return appendExact(builder, value, decimals);
+        }
+        long whole = (long) scaled;
+        double fraction = scaled - whole;
+        if (Math.abs(fraction - 0.5) < TIE_MARGIN) {
+            // Too close to call in binary; round the decimal form like Formatter does
+            return appendExact(builder, value, decimals);
+        }
+        long rounded = fraction > 0.5 ? whole + 1 : whole;
+
+        builder.append(rounded / scale);
+        if (decimals > 0) {
+            builder.append('.');
+            long digits = rounded % scale;
+            for (long pad = scale / 10; pad > 1 && digits < pad; pad /= 10) {
+                builder.append('0');
+            }
+            builder.append(digits);
+        }
+        return builder;
+    }
+
+    private static StringBuilder appendExact(StringBuilder builder, double value, int decimals) {
+        return builder.append(new BigDecimal(Double.toString(value))
+            .setScale(decimals, RoundingMode.HALF_UP)
+            .toPlainString());
+    }
+
+    /**
+     * Append a whole number with ',' between groups of three digits, like {@code %,d}
+     */
+    public static StringBuilder appendGrouped(StringBuilder builder, long value) {
+        if (value < 0) {
+            builder.append('-');
+            if (value == Long.MIN_VALUE) {
+                return builder.append("9,223,372,036,854,775,808");
+            }
+            value = -value;
+        }
+        long group = 1;
+        while (value / group >= 1000) {
+            group *= 1000;
+        }
+        builder.append(value / group);
+        while (group > 1) {
+            value %= group;
+            group /= 1000;
+            long digits = value / group;
+            builder.append(',');
+            if (digits < 100) {
+                builder.append('0');
+            }
+            if (digits < 10) {
+                builder.append('0');
+            }
+            builder.append(digits);
+        }
+        return builder;
+    }
+
+    /**
+     * A whole number with ',' between groups of three digits, like {@code %,d}
+     */
+    public static String grouped(long value) {
+        StringBuilder builder = NUMBER.get();
+        builder.setLength(0);
+        return appendGrouped(builder, value).toString();
+    }
+
+    /**
+     * Append a ten segment progress bar, green for each full 10% and gray for the rest
+     */
+    public static StringBuilder appendProgressBar(StringBuilder builder, double percentage) {
+        int filled = (int) (percentage / 10);
+        builder.append("§a");
+        for (int i = 0; i < filled; i++) {
+            builder.append('█');
+        }
+        builder.append("§7");
+        for (int i = filled; i < BAR_SEGMENTS; i++) {
+            builder.append('█');
+        }
+        return builder;
+    }
+}
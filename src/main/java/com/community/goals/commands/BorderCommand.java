@@ -131,7 +131,7 @@ public class BorderCommand extends BaseCommand {
             return true;
         }
 
-        borderManager.getBorderConfig().setExpansionAmount(amount);
+        borderManager.setExpansionAmount(amount);
         sendSuccess(sender, String.format("Border expansion amount set to %.1f", amount));
         return true;
     }
@@ -1,13 +1,20 @@
 package com.community.goals.commands;
 
 import com.community.goals.Goal;
+import com.community.goals.ItemAcceptanceRules;
+import com.community.goals.ItemMatcher;
+import com.community.goals.MaterialRequirements;
 import com.community.goals.State;
+import com.community.goals.TextFormat;
 import com.community.goals.features.BorderExpansionManager;
+import com.community.goals.features.BorderHistory;
 import com.community.goals.features.BorderManagerRegistry;
+import com.community.goals.features.RegionTrimmer;
 import com.community.goals.logic.GoalProgressTracker;
 import com.community.goals.logic.GoalQueueManager;
 import com.community.goals.persistence.ConfigManager;
 import com.community.goals.persistence.PersistenceManager;
+import org.bukkit.Material;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
@@ -19,16 +26,20 @@ import java.util.logging.Logger;
  * Handles /goal admin commands
  */
 public class GoalAdminCommand extends BaseCommand {
+    private static final int BORDER_HISTORY_LINES = 10;
+
     private final BorderManagerRegistry borderRegistry;
     private final ConfigManager configManager;
     private final GoalQueueManager queueManager;
+    private final RegionTrimmer regionTrimmer;
     private final Logger logger;
     
-    public GoalAdminCommand(GoalProgressTracker tracker, PersistenceManager persistence, BorderManagerRegistry borderRegistry, ConfigManager configManager, GoalQueueManager queueManager, Logger logger) {
+    public GoalAdminCommand(GoalProgressTracker tracker, PersistenceManager persistence, BorderManagerRegistry borderRegistry, ConfigManager configManager, GoalQueueManager queueManager, RegionTrimmer regionTrimmer, Logger logger) {
         super(tracker, persistence);
         this.borderRegistry = borderRegistry;
         this.configManager = configManager;
         this.queueManager = queueManager;
+        this.regionTrimmer = regionTrimmer;
         this.logger = logger;
     }
 
@@ -64,12 +75,20 @@ public class GoalAdminCommand extends BaseCommand {
                 return handleSetState(sender, args);
             case "setreward":
                 return handleSetReward(sender, args);
+            case "setcap":
+                return handleSetCap(sender, args);
+            case "material":
+                return handleMaterial(sender, args);
+            case "accept":
+                return handleAccept(sender, args);
             case "save":
                 return handleSave(sender);
             case "border":
                 return handleBorder(sender, args);
             case "queue":
                 return handleQueue(sender, args);
+            case "trim":
+                return handleTrim(sender, args);
             default:
                 showHelp(sender);
                 return true;
@@ -133,12 +152,20 @@ public class GoalAdminCommand extends BaseCommand {
             Goal goal = tracker.createGoal(id, name, description, target, worldName);
             if (rewardExpansion > 0) {
                 goal.setRewardExpansion(rewardExpansion);
-                persistence.saveGoal(goal);
+                tracker.markUpdated(goal);
             }
             if (queueManager != null && queueManager.isEnabled()) {
                 queueManager.handleGoalCreated(goal);
             }
             sendSuccess(sender, "Goal created: " + goal.getName() + " (ID: " + goal.getId() + ")");
+            Material accepted = ItemAcceptanceRules.legacyMaterialFor(goal.getId());
+            if (accepted != null) {
+                goal.getAcceptanceRules().addMaterial(accepted);
+                tracker.markUpdated(goal);
+                sendInfo(sender, "Accepting " + accepted.name() + ". Change with /goal admin accept " + goal.getId());
+            } else {
+                sendInfo(sender, "No items accepted yet. Use /goal admin accept " + goal.getId() + " add <material|#tag|cmd:<n>|pdc:<key>>");
+            }
             return true;
         } catch (IllegalArgumentException e) {
             sendError(sender, e.getMessage());
@@ -185,6 +212,11 @@ public class GoalAdminCommand extends BaseCommand {
         if (goal.getRewardExpansion() > 0) {
             sender.sendMessage("§7Reward Expansion: §f" + goal.getRewardExpansion() + " blocks");
         }
+        sendMaterialLines(sender, goal);
+        if (goal.getContributionCap() > 0) {
+            sender.sendMessage("§7Contribution Cap: §f" + goal.getContributionCap() + " per player");
+        }
+        sender.sendMessage("§7Contributors: §f" + goal.getContributions().size());
         sender.sendMessage("§7State: " + goal.getState().getColoredName());
         sender.sendMessage("§7Created: §f" + new java.util.Date(goal.getCreatedAt()));
         if (goal.isCompleted()) {
@@ -203,19 +235,17 @@ public class GoalAdminCommand extends BaseCommand {
         sender.sendMessage("");
         
         for (Goal goal : goals) {
-            String status = goal.isCompleted() ? "§a✓" : "§7○";
-            String progressBar = createProgressBar(goal.getProgressPercentage());
-            String rewardLabel = goal.getRewardExpansion() > 0 ? String.format(" §7(+%.0f)", goal.getRewardExpansion()) : "";
-            String worldLabel = " §7(" + goal.getWorldName() + ")";
-            sender.sendMessage(String.format(
-                "%s §f%s%s%s §7[%s] %.1f%%",
-                status,
-                goal.getName(),
-                rewardLabel,
-                worldLabel,
-                progressBar,
-                goal.getProgressPercentage()
-            ));
+            double percentage = goal.getProgressPercentage();
+            StringBuilder line = TextFormat.line()
+                .append(goal.isCompleted() ? "§a✓" : "§7○")
+                .append(" §f").append(goal.getName());
+            if (goal.getRewardExpansion() > 0) {
+                TextFormat.appendFixed(line.append(" §7(+"), goal.getRewardExpansion(), 0).append(')');
+            }
+            line.append(" §7(").append(goal.getWorldName()).append(") §7[");
+            TextFormat.appendProgressBar(line, percentage).append("] ");
+            TextFormat.appendFixed(line, percentage, 1).append('%');
+            sender.sendMessage(line.toString());
         }
         
         sender.sendMessage("");
@@ -281,7 +311,7 @@ public class GoalAdminCommand extends BaseCommand {
                 sendSuccess(sender, "Goal completed: " + goal.getName());
             } else {
                 goal.setState(state);
-                persistence.saveGoal(goal);
+                tracker.markUpdated(goal);
                 sendSuccess(sender, "State set to " + state.getDisplayName() + " for " + goal.getName());
             }
             if (queueManager != null && queueManager.isEnabled()) {
@@ -326,11 +356,239 @@ public class GoalAdminCommand extends BaseCommand {
         }
 
         goal.setRewardExpansion(reward);
-        persistence.saveGoal(goal);
+        tracker.markUpdated(goal);
         sendSuccess(sender, "Reward set to " + reward + " blocks for " + goal.getName());
         return true;
     }
 
+    /**
+     * Set the per-player contribution cap for a goal.
+     * Usage: /goal-admin setcap <id> <amount|off>
+     */
+    private boolean handleSetCap(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sendError(sender, "Usage: /goal admin setcap <id> <amount|off>");
+            return true;
+        }
+
+        Goal goal = getGoalOrError(sender, args[1]);
+        if (goal == null) {
+            return true;
+        }
+
+        long cap;
+        if (args[2].equalsIgnoreCase("off")) {
+            cap = 0;
+        } else {
+            try {
+                cap = Long.parseLong(args[2]);
+            } catch (NumberFormatException e) {
+                sendError(sender, "Cap must be a number or 'off'");
+                return true;
+            }
+            if (cap < 0) {
+                sendError(sender, "Cap must be zero or positive");
+                return true;
+            }
+        }
+
+        goal.setContributionCap(cap);
+        tracker.markUpdated(goal);
+        if (cap == 0) {
+            sendSuccess(sender, "Removed the contribution cap for " + goal.getName());
+        } else {
+            sendSuccess(sender, "Players may now contribute up to " + cap + " points each to " + goal.getName());
+        }
+        return true;
+    }
+
+    private boolean handleMaterial(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sendError(sender, "Usage: /goal admin material <id> <list|add|remove> [material] [target] [points]");
+            sendInfo(sender, "Example: /goal admin material ores add IRON_INGOT 500 1");
+            return true;
+        }
+
+        Goal goal = getGoalOrError(sender, args[1]);
+        if (goal == null) {
+            return true;
+        }
+        MaterialRequirements requirements = goal.getMaterialRequirements();
+        String action = args[2].toLowerCase();
+
+        if (action.equals("list")) {
+            sender.sendMessage("§6§l=== Materials: " + goal.getName() + " ===");
+            if (requirements.isEmpty()) {
+                sender.sendMessage("§7No material requirements set.");
+            } else {
+                sendMaterialLines(sender, goal);
+                long weighted = requirements.getWeightedTarget();
+                if (weighted > 0 && weighted != goal.getTargetProgress()) {
+                    sendInfo(sender, "Material targets add up to " + weighted + " points (goal target is " + goal.getTargetProgress() + ")");
+                }
+            }
+            return true;
+        }
+
+        if (args.length < 4) {
+            sendError(sender, "Usage: /goal admin material <id> " + action + " <material> ...");
+            return true;
+        }
+        Material material = Material.matchMaterial(args[3]);
+        if (material == null || !material.isItem()) {
+            sendError(sender, "Unknown item: " + args[3]);
+            return true;
+        }
+
+        switch (action) {
+            case "add":
+            case "set": {
+                long target = 0;
+                long points = 1;
+                try {
+                    if (args.length > 4) {
+                        target = Long.parseLong(args[4]);
+                    }
+                    if (args.length > 5) {
+                        points = Long.parseLong(args[5]);
+                    }
+                } catch (NumberFormatException e) {
+                    sendError(sender, "Target and points must be numbers");
+                    return true;
+                }
+                try {
+                    requirements.setRequirement(material, target, points);
+                } catch (IllegalArgumentException e) {
+                    sendError(sender, e.getMessage());
+                    return true;
+                }
+                tracker.markUpdated(goal);
+                String targetLabel = target > 0 ? String.valueOf(target) : "unlimited";
+                sendSuccess(sender, "Goal " + goal.getId() + " accepts " + material.name() + " (target " + targetLabel + ", " + points + " points each)");
+                return true;
+            }
+            case "remove":
+                if (!requirements.removeRequirement(material)) {
+                    sendError(sender, "Goal does not require " + material.name());
+                    return true;
+                }
+                tracker.markUpdated(goal);
+                sendSuccess(sender, "Removed " + material.name() + " from " + goal.getId());
+                return true;
+            default:
+                sendError(sender, "Unknown material action: " + action);
+                return true;
+        }
+    }
+
+    private boolean handleAccept(CommandSender sender, String[] args) {
+        if (args.length < 3) {
+            sendError(sender, "Usage: /goal admin accept <id> <list|add|remove|clear> [material|#tag|cmd:<n>|pdc:<key>]");
+            sendInfo(sender, "Example: /goal admin accept lumber add #minecraft:logs");
+            return true;
+        }
+
+        Goal goal = getGoalOrError(sender, args[1]);
+        if (goal == null) {
+            return true;
+        }
+        ItemAcceptanceRules rules = goal.getAcceptanceRules();
+        String action = args[2].toLowerCase();
+
+        switch (action) {
+            case "list":
+                sendAcceptLines(sender, goal);
+                return true;
+            case "clear":
+                rules.clear();
+                tracker.markUpdated(goal);
+                sendSuccess(sender, "Cleared acceptance rules for " + goal.getId());
+                return true;
+            case "add":
+            case "remove":
+                break;
+            default:
+                sendError(sender, "Unknown accept action: " + action);
+                return true;
+        }
+
+        if (args.length < 4) {
+            sendError(sender, "Usage: /goal admin accept <id> " + action + " <material|#tag|cmd:<n>|pdc:<key>>");
+            return true;
+        }
+
+        boolean add = action.equals("add");
+        String rule = args[3];
+        String lower = rule.toLowerCase();
+        boolean changed;
+        if (lower.startsWith("#") || lower.startsWith("tag:")) {
+            String tagKey = lower.startsWith("#") ? lower.substring(1) : lower.substring(4);
+            if (tagKey.indexOf(':') < 0) {
+                tagKey = "minecraft:" + tagKey;
+            }
+            if (add && ItemMatcher.resolveTag(tagKey) == null) {
+                sendError(sender, "Unknown item tag: " + tagKey);
+                return true;
+            }
+            changed = add ? rules.addTag(tagKey) : rules.removeTag(tagKey);
+        } else if (lower.startsWith("cmd:")) {
+            int value;
+            try {
+                value = Integer.parseInt(rule.substring(4));
+            } catch (NumberFormatException e) {
+                sendError(sender, "Custom model data must be a number");
+                return true;
+            }
+            changed = add ? rules.addCustomModelData(value) : rules.removeCustomModelData(value);
+        } else if (lower.startsWith("pdc:")) {
+            String key = lower.substring(4);
+            if (key.indexOf(':') < 0) {
+                sendError(sender, "PDC keys need a namespace, e.g. pdc:myplugin:custom_item");
+                return true;
+            }
+            changed = add ? rules.addPdcKey(key) : rules.removePdcKey(key);
+        } else {
+            Material material = Material.matchMaterial(rule);
+            if (material == null || !material.isItem()) {
+                sendError(sender, "Unknown item: " + rule);
+                return true;
+            }
+            changed = add ? rules.addMaterial(material) : rules.removeMaterial(material);
+        }
+
+        if (!changed) {
+            sendError(sender, add ? "Rule already present: " + rule : "Rule not found: " + rule);
+            return true;
+        }
+        tracker.markUpdated(goal);
+        sendSuccess(sender, (add ? "Added" : "Removed") + " acceptance rule " + rule + " for " + goal.getId());
+        return true;
+    }
+
+    private void sendAcceptLines(CommandSender sender, Goal goal) {
+        ItemAcceptanceRules rules = goal.getAcceptanceRules();
+        sender.sendMessage("§6§l=== Accepted Items: " + goal.getName() + " ===");
+        sender.sendMessage("§7Materials: §f" + (rules.getMaterials().isEmpty() ? "-" : rules.getMaterials().toString()));
+        sender.sendMessage("§7Tags: §f" + (rules.getTags().isEmpty() ? "-" : rules.getTags().toString()));
+        sender.sendMessage("§7Custom model data: §f" + (rules.getCustomModelData().isEmpty() ? "any" : rules.getCustomModelData().toString()));
+        sender.sendMessage("§7PDC keys: §f" + (rules.getPdcKeys().isEmpty() ? "any" : rules.getPdcKeys().toString()));
+        if (!goal.getMaterialRequirements().isEmpty()) {
+            sender.sendMessage("§7Material requirements are always accepted (see /goal admin material " + goal.getId() + " list)");
+        }
+        if (!goal.getItemMatcher().acceptsAnything()) {
+            sender.sendMessage("§cThis goal currently accepts no items.");
+        }
+    }
+
+    private void sendMaterialLines(CommandSender sender, Goal goal) {
+        MaterialRequirements requirements = goal.getMaterialRequirements();
+        for (int i = 0; i < requirements.size(); i++) {
+            String target = requirements.getTarget(i) > 0 ? String.valueOf(requirements.getTarget(i)) : "∞";
+            sender.sendMessage("§7- §f" + requirements.getMaterial(i).name() + "§7: " + requirements.getDelivered(i)
+                + " / " + target + " §8(" + requirements.getPoints(i) + " pts each)");
+        }
+    }
+
     private boolean handleBorder(CommandSender sender, String[] args) {
         if (args.length < 2) {
             sender.sendMessage("?6?l=== Border Commands ===");
@@ -338,6 +596,8 @@ public class GoalAdminCommand extends BaseCommand {
             sender.sendMessage("?7/goal admin border [world] set <size> - Set border size");
             sender.sendMessage("?7/goal admin border [world] expand [amount] - Expand border");
             sender.sendMessage("?7/goal admin border [world] center <x> <z> - Set border center");
+            sender.sendMessage("§7/goal admin border [world] history - Show recent border changes");
+            sender.sendMessage("§7/goal admin border [world] rollback <n> - Undo the last n border changes");
             return true;
         }
 
@@ -370,6 +630,10 @@ public class GoalAdminCommand extends BaseCommand {
                 return handleBorderExpand(sender, borderManager, args, cmdIndex + 1, worldName);
             case "center":
                 return handleBorderCenter(sender, borderManager, args, cmdIndex + 1, worldName);
+            case "history":
+                return handleBorderHistory(sender, borderManager);
+            case "rollback":
+                return handleBorderRollback(sender, borderManager, args, cmdIndex + 1, worldName);
             default:
                 sendError(sender, "Unknown border command: " + borderCmd);
                 return true;
@@ -423,6 +687,74 @@ public class GoalAdminCommand extends BaseCommand {
         }
     }
 
+    /**
+     * List or schedule removal of region files outside a world's border.
+     * Usage: /goal-admin trim [world] [scan|archive|delete|cancel] [margin]
+     */
+    private boolean handleTrim(CommandSender sender, String[] args) {
+        String worldName = resolveDefaultWorld(sender);
+        int actionIndex = 1;
+        if (args.length > 1 && !isTrimAction(args[1].toLowerCase())) {
+            worldName = args[1];
+            actionIndex = 2;
+        }
+        BorderExpansionManager manager = borderRegistry.getManager(worldName);
+        if (manager == null) {
+            sendError(sender, "No border configured for world: " + worldName);
+            return true;
+        }
+        worldName = manager.getBorderConfig().getWorldName();
+        String action = args.length > actionIndex ? args[actionIndex].toLowerCase() : "scan";
+        if (!isTrimAction(action)) {
+            sendError(sender, "Usage: /goal admin trim [world] [scan|archive|delete|cancel] [margin]");
+            return true;
+        }
+
+        if (action.equals("cancel")) {
+            if (regionTrimmer.cancel(worldName)) {
+                sendSuccess(sender, "Cancelled the planned region trim for " + worldName);
+            } else {
+                sendError(sender, "No region trim is planned for " + worldName);
+            }
+            return true;
+        }
+
+        int margin = configManager.getInt("region-trim.margin", 512);
+        if (args.length > actionIndex + 1) {
+            try {
+                margin = Integer.parseInt(args[actionIndex + 1]);
+            } catch (NumberFormatException e) {
+                sendError(sender, "Margin must be a number of blocks");
+                return true;
+            }
+        }
+
+        String finalWorld = worldName;
+        sendInfo(sender, "Scanning region files of " + worldName + "...");
+        regionTrimmer.scan(worldName, margin, result -> {
+            if (result == null) {
+                sendError(sender, "World " + finalWorld + " is not loaded");
+                return;
+            }
+            sendInfo(sender, result.files.size() + " region files (" + (result.bytes / (1024 * 1024))
+                + " MB) lie outside regions " + result.keep.minX + ".." + result.keep.maxX + " x "
+                + result.keep.minZ + ".." + result.keep.maxZ + " of " + result.worldName);
+            if (action.equals("scan") || result.files.isEmpty()) {
+                RegionTrimmer.Plan plan = regionTrimmer.getPlan(result.worldName);
+                if (plan != null) {
+                    sendInfo(sender, (plan.delete ? "Deleting " : "Archiving ") + plan.getFileCount()
+                        + " files is planned for the next restart");
+                }
+                return;
+            }
+            regionTrimmer.schedule(result, action.equals("delete"));
+            sendSuccess(sender, "They will be " + (action.equals("delete") ? "deleted" : "archived")
+                + " on the next restart, before the world loads. Use /goal admin trim " + result.worldName
+                + " cancel to undo.");
+        });
+        return true;
+    }
+
     private boolean handleQueueList(CommandSender sender, String worldName) {
         var queue = queueManager.getQueue(worldName);
         sender.sendMessage("");
@@ -633,6 +965,58 @@ public class GoalAdminCommand extends BaseCommand {
         return true;
     }
 
+    private boolean handleBorderHistory(CommandSender sender, BorderExpansionManager borderManager) {
+        BorderHistory history = borderManager.getHistory();
+        sender.sendMessage("");
+        sender.sendMessage("§6§l=== Border History: " + borderManager.getBorderConfig().getWorldName() + " ===");
+        if (history.size() == 0) {
+            sender.sendMessage("§7No border changes recorded.");
+            sender.sendMessage("");
+            return true;
+        }
+        java.text.SimpleDateFormat dateFormat = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm");
+        int n = 1;
+        for (BorderHistory.Entry entry : history.getRecentEntries(BORDER_HISTORY_LINES)) {
+            StringBuilder line = TextFormat.line().append("§7").append(n++).append(". §f")
+                .append(dateFormat.format(new java.util.Date(entry.timestamp))).append(" §e").append(entry.source)
+                .append(" §f");
+            TextFormat.appendFixed(line, entry.beforeSize, 1).append(" -> ");
+            TextFormat.appendFixed(line, entry.afterSize, 1).append(entry.getAmount() < 0 ? " §c(" : " §a(+");
+            TextFormat.appendFixed(line, entry.getAmount(), 1).append(')');
+            sender.sendMessage(line.toString());
+        }
+        sender.sendMessage("§7Use /goal admin border rollback <n> to return to the size before change n.");
+        sender.sendMessage("");
+        return true;
+    }
+
+    private boolean handleBorderRollback(CommandSender sender, BorderExpansionManager borderManager, String[] args, int countIndex, String worldName) {
+        if (args.length <= countIndex) {
+            sendError(sender, "Usage: /goal admin border [world] rollback <n>");
+            return true;
+        }
+        int count;
+        try {
+            count = Integer.parseInt(args[countIndex]);
+        } catch (NumberFormatException e) {
+            sendError(sender, "Count must be a number");
+            return true;
+        }
+        BorderHistory.Entry entry = borderManager.getHistory().getRecent(count);
+        if (entry == null) {
+            sendError(sender, "Only " + borderManager.getHistory().size() + " border changes are on record");
+            return true;
+        }
+
+        if (borderManager.rollback(count)) {
+            sendSuccess(sender, "Border rolled back to " + entry.beforeSize + " blocks (before: " + entry.source + ")");
+            saveBorderConfig(worldName);
+        } else {
+            sendError(sender, "Failed to roll back border");
+        }
+        return true;
+    }
+
     private void showHelp(CommandSender sender) {
         sender.sendMessage("");
         sender.sendMessage("§6§l=== Goal Admin Commands ===");
@@ -644,24 +1028,16 @@ public class GoalAdminCommand extends BaseCommand {
         sender.sendMessage("§7/goal admin complete <id>");
         sender.sendMessage("§7/goal admin setstate <id> <state>");
         sender.sendMessage("§7/goal admin setreward <id> <amount>");
+        sender.sendMessage("§7/goal admin setcap <id> <amount|off>");
+        sender.sendMessage("§7/goal admin material <id> <list|add|remove> [material] [target] [points]");
+        sender.sendMessage("§7/goal admin accept <id> <list|add|remove|clear> [material|#tag|cmd:<n>|pdc:<key>]");
         sender.sendMessage("§7/goal admin save");
         sender.sendMessage("§7/goal admin border [world] - Border management commands");
         sender.sendMessage("§7/goal admin queue [world] - Queue management commands");
+        sender.sendMessage("§7/goal admin trim [world] [scan|archive|delete|cancel] [margin]");
         sender.sendMessage("");
     }
 
-    private String createProgressBar(double percentage) {
-        int filled = (int) (percentage / 10);
-        int empty = 10 - filled;
-        
-        String bar = "§a";
-        for (int i = 0; i < filled; i++) bar += "█";
-        bar += "§7";
-        for (int i = 0; i < empty; i++) bar += "█";
-        
-        return bar;
-    }
-
     /**
      * Parse command arguments handling quoted strings
      */
@@ -727,7 +1103,12 @@ public class GoalAdminCommand extends BaseCommand {
     }
 
     private boolean isBorderSubcommand(String value) {
-        return value.equals("info") || value.equals("set") || value.equals("expand") || value.equals("center");
+        return value.equals("info") || value.equals("set") || value.equals("expand") || value.equals("center")
+            || value.equals("history") || value.equals("rollback");
+    }
+
+    private boolean isTrimAction(String value) {
+        return value.equals("scan") || value.equals("archive") || value.equals("delete") || value.equals("cancel");
     }
 
     private boolean isQueueAction(String value) {
@@ -1,25 +1,42 @@
 package com.community.goals.commands;
 
 import com.community.goals.Goal;
+import com.community.goals.ItemMatcher;
+import com.community.goals.MaterialRequirements;
+import com.community.goals.TextFormat;
+import com.community.goals.features.AutoDepositManager;
+import com.community.goals.logic.DepositRouter;
 import com.community.goals.logic.GoalProgressTracker;
+import com.community.goals.logic.InventoryTransaction;
+import com.community.goals.logic.MaterialSelection;
 import com.community.goals.logic.TurnInHandler;
+import com.community.goals.logic.TurnInJournal;
+import com.community.goals.logic.TurnInRateLimiter;
 import com.community.goals.persistence.PersistenceManager;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
 
 import java.util.Collection;
+import java.util.Collections;
 
 /**
  * Handles /goal player commands (view, turn-in, etc.)
  */
 public class GoalPlayerCommand extends BaseCommand {
     private final TurnInHandler turnInHandler;
+    private final DepositRouter depositRouter;
+    private final TurnInRateLimiter rateLimiter;
+    private final AutoDepositManager autoDepositManager;
 
     public GoalPlayerCommand(GoalProgressTracker tracker, PersistenceManager persistence, 
-                            TurnInHandler turnInHandler) {
+                            TurnInHandler turnInHandler, DepositRouter depositRouter,
+                            TurnInRateLimiter rateLimiter, AutoDepositManager autoDepositManager) {
         super(tracker, persistence);
         this.turnInHandler = turnInHandler;
+        this.depositRouter = depositRouter;
+        this.rateLimiter = rateLimiter;
+        this.autoDepositManager = autoDepositManager;
     }
 
     @Override
@@ -47,6 +64,10 @@ public class GoalPlayerCommand extends BaseCommand {
                 return handleInfo(sender, args);
             case "turnin":
                 return handleTurnIn(sender, args);
+            case "depositall":
+                return handleDepositAll(sender);
+            case "autodeposit":
+                return handleAutoDeposit(sender, args);
             default:
                 showHelp(sender);
                 return true;
@@ -86,13 +107,11 @@ public class GoalPlayerCommand extends BaseCommand {
         sender.sendMessage("");
 
         for (Goal goal : goals) {
-            String progressBar = createProgressBar(goal.getProgressPercentage());
-            sender.sendMessage(String.format(
-                "§f%s §7[%s] %.1f%%",
-                goal.getName(),
-                progressBar,
-                goal.getProgressPercentage()
-            ));
+            double percentage = goal.getProgressPercentage();
+            StringBuilder line = TextFormat.line().append("§f").append(goal.getName()).append(" §7[");
+            TextFormat.appendProgressBar(line, percentage).append("] ");
+            TextFormat.appendFixed(line, percentage, 1).append('%');
+            sender.sendMessage(line.toString());
         }
 
         sender.sendMessage("");
@@ -115,7 +134,7 @@ public class GoalPlayerCommand extends BaseCommand {
         sender.sendMessage("§6" + goal.getName());
         sender.sendMessage(String.format("§7Progress: §f%d / %d", 
             goal.getCurrentProgress(), goal.getTargetProgress()));
-        sender.sendMessage(String.format("§7Complete: §a%.1f%%", goal.getProgressPercentage()));
+        sender.sendMessage("§7Complete: §a" + TextFormat.percent(goal.getProgressPercentage()) + "%");
 
         long remaining = goal.getTargetProgress() - goal.getCurrentProgress();
         if (remaining > 0) {
@@ -141,93 +160,114 @@ public class GoalPlayerCommand extends BaseCommand {
         return true;
     }
 
+    /**
+     * Turn in items in a single pass over the inventory.
+     * Usage: /goal turnin <id> <amount|all> [item_type]
+     */
     @SuppressWarnings("deprecation")
     private boolean handleTurnIn(CommandSender sender, String[] args) {
         if (!isPlayer(sender)) {
             sendError(sender, "Only players can use turn-in");
             return true;
         }
+        if (!rateLimiter.tryAcquire(getPlayer(sender))) {
+            return true;
+        }
 
         if (args.length < 3) {
-            sendError(sender, "Usage: /goal turnin <id> <amount> [item_type]");
+            sendError(sender, "Usage: /goal turnin <id> <amount|all> [item_type]");
             sendInfo(sender, "Example: /goal turnin diamonds 10 DIAMOND");
             return true;
         }
 
-        String goalId = args[1];
-        long amount;
-        String itemType = null;
-
-        try {
-            amount = Long.parseLong(args[2]);
-        } catch (NumberFormatException e) {
-            sendError(sender, "Amount must be a number");
+        Goal goal = getGoalOrError(sender, args[1]);
+        if (goal == null) {
             return true;
         }
 
-        // Get item type from command or try to detect from goal ID
-        if (args.length >= 4) {
-            itemType = args[3].toUpperCase();
+        long budget;
+        if (args[2].equalsIgnoreCase("all")) {
+            budget = Long.MAX_VALUE;
         } else {
-            // Try to guess item type from goal ID
-            itemType = guessItemTypeFromGoalId(goalId);
-        }
-
-        if (itemType == null) {
-            sendError(sender, "Please specify item type: /goal turnin <id> <amount> <item_type>");
-            sendInfo(sender, "Example: /goal turnin diamonds 10 DIAMOND");
-            return true;
+            try {
+                budget = Long.parseLong(args[2]);
+            } catch (NumberFormatException e) {
+                sendError(sender, "Amount must be a number or 'all'");
+                return true;
+            }
+            if (budget <= 0) {
+                sendError(sender, "Amount must be a positive number or 'all'");
+                return true;
+            }
         }
 
         Player player = getPlayer(sender);
-
-        // Validate turn-in
-        TurnInHandler.ValidationResult validation = turnInHandler.validateTurnIn(goalId, amount);
+        // The budget counts items, not points, so only check that some allowance is left here
+        TurnInHandler.ValidationResult validation = turnInHandler.validateTurnIn(goal.getId(), player.getUniqueId(), 1);
         if (!validation.isValid()) {
             sendError(sender, validation.getReason());
             return true;
         }
 
-        // Check if player has the required items
-        org.bukkit.Material material;
-        try {
-            material = org.bukkit.Material.valueOf(itemType);
-        } catch (IllegalArgumentException e) {
-            sendError(sender, "Invalid item type: " + itemType);
-            sendInfo(sender, "Use Minecraft material names like DIAMOND, IRON_INGOT, OAK_LOG, etc.");
+        ItemMatcher matcher = goal.getItemMatcher();
+        if (!matcher.acceptsAnything()) {
+            sendError(sender, "This goal doesn't accept any items yet");
             return true;
         }
 
-        // Count items in inventory
-        int itemCount = countItemsInInventory(player, material);
-        if (itemCount < amount) {
-            sendError(sender, String.format("You don't have enough %s! You have %d, need %d", 
-                material.name().toLowerCase().replace("_", " "), itemCount, amount));
-            return true;
+        org.bukkit.Material only = null;
+        if (args.length >= 4) {
+            only = org.bukkit.Material.matchMaterial(args[3]);
+            if (only == null) {
+                sendError(sender, "Invalid item type: " + args[3]);
+                sendInfo(sender, "Use Minecraft material names like DIAMOND, IRON_INGOT, OAK_LOG, etc.");
+                return true;
+            }
+            if (!matcher.accepts(only)) {
+                sendError(sender, "This goal doesn't accept " + only.name().toLowerCase().replace("_", " "));
+                return true;
+            }
         }
 
-        // Remove items from inventory
-        if (!removeItemsFromInventory(player, material, (int) amount)) {
-            sendError(sender, "Failed to remove items from inventory");
+        MaterialSelection selection = new MaterialSelection(goal, budget, player.getUniqueId());
+        InventoryTransaction transaction = InventoryTransaction.select(player.getInventory(), selection, only);
+
+        if (transaction.isEmpty()) {
+            sendError(sender, "You don't have any items this goal still needs");
+            return true;
+        }
+        // Falling short of the budget is only an error when the inventory ran out first
+        boolean shortOfBudget = budget != Long.MAX_VALUE && transaction.getSelectedItems() < budget;
+        if (shortOfBudget && !selection.isCapped()) {
+            sendError(sender, String.format("You don't have enough items! You have %d usable, need %d",
+                transaction.getSelectedItems(), budget));
+            if (goal.getContributionCap() > 0) {
+                sendInfo(sender, "Your contribution limit allows " + goal.getRemainingAllowance(player.getUniqueId())
+                    + " more points for this goal");
+            }
             return true;
         }
 
-        // Process turn-in
-        TurnInHandler.TurnInResult result = turnInHandler.processTurnIn(goalId, amount, player.getName());
+        TurnInHandler.TurnInResult result = turnInHandler.processTransaction(
+            TurnInJournal.newTransactionId(), player.getUniqueId(), player.getName(),
+            Collections.singletonMap(goal.getId(), selection.getItemCounts()), transaction).get(0);
         if (!result.isSuccess()) {
             sendError(sender, result.getMessage());
-            // Return items if turn-in failed
-            player.getInventory().addItem(new org.bukkit.inventory.ItemStack(material, (int) amount));
             return true;
         }
 
-        sendSuccess(sender, String.format("Turned in %d %s! Progress: %d / %d (%.1f%%)", 
-            amount, 
-            material.name().toLowerCase().replace("_", " "),
-            result.getNewProgress(), 
+        sendSuccess(sender, String.format("Turned in %s (+%d points)! Progress: %d / %d (%.1f%%)",
+            selection.describe(),
+            result.getAmountAdded(),
+            result.getNewProgress(),
             result.getTargetProgress(),
             result.getProgressPercentage()));
-        
+        if (shortOfBudget) {
+            String limit = goal.getContributionCap() > 0 && goal.getRemainingAllowance(player.getUniqueId()) <= 0
+                ? "Your contribution limit only allowed " : "The goal only needed ";
+            sendInfo(sender, limit + transaction.getSelectedItems() + " of the " + budget + " items");
+        }
+
         if (result.isGoalCompleted()) {
             //noinspection deprecation
             org.bukkit.Bukkit.getServer().broadcastMessage("§a§l✓ Goal completed by " + player.getName() + "! " + result.getGoalId());
@@ -237,76 +277,75 @@ public class GoalPlayerCommand extends BaseCommand {
     }
 
     /**
-     * Count specific items in player's inventory
+     * Deposit every item any active goal in the player's world still needs.
+     * Usage: /goal depositall
      */
-    private int countItemsInInventory(Player player, org.bukkit.Material material) {
-        int count = 0;
-        for (org.bukkit.inventory.ItemStack item : player.getInventory().getContents()) {
-            if (item != null && item.getType() == material) {
-                count += item.getAmount();
-            }
+    @SuppressWarnings("deprecation")
+    private boolean handleDepositAll(CommandSender sender) {
+        if (!isPlayer(sender)) {
+            sendError(sender, "Only players can use turn-in");
+            return true;
+        }
+        if (!rateLimiter.tryAcquire(getPlayer(sender))) {
+            return true;
         }
-        return count;
-    }
 
-    /**
-     * Remove specific amount of items from player's inventory
-     */
-    private boolean removeItemsFromInventory(Player player, org.bukkit.Material material, int amount) {
-        int remaining = amount;
-        org.bukkit.inventory.ItemStack[] contents = player.getInventory().getContents();
-        
-        for (int i = 0; i < contents.length && remaining > 0; i++) {
-            org.bukkit.inventory.ItemStack item = contents[i];
-            if (item != null && item.getType() == material) {
-                int itemAmount = item.getAmount();
-                if (itemAmount <= remaining) {
-                    // Remove entire stack
-                    remaining -= itemAmount;
-                    contents[i] = null;
-                } else {
-                    // Remove partial stack
-                    item.setAmount(itemAmount - remaining);
-                    remaining = 0;
-                }
+        Player player = getPlayer(sender);
+        DepositRouter.DepositResult deposit = depositRouter.depositAll(
+            player.getInventory(), player.getWorld().getName(), player.getUniqueId(), player.getName());
+        if (!deposit.isSuccess()) {
+            sendError(sender, deposit.getMessage());
+            return true;
+        }
+
+        sendSuccess(sender, "Deposited " + deposit.getItemsDeposited() + " items:");
+        for (TurnInHandler.TurnInResult result : deposit.getResults()) {
+            sendInfo(sender, String.format("%s (+%d points) %.1f%%",
+                deposit.getSummary(result.getGoalId()),
+                result.getAmountAdded(),
+                result.getProgressPercentage()));
+            if (result.isGoalCompleted()) {
+                //noinspection deprecation
+                org.bukkit.Bukkit.getServer().broadcastMessage("§a§l✓ Goal completed by " + player.getName() + "! " + result.getGoalId());
             }
         }
-        
-        player.getInventory().setContents(contents);
-        return remaining == 0;
+        return true;
     }
 
     /**
-     * Try to guess item type from goal ID
+     * Toggle depositing goal items on pickup.
+     * Usage: /goal autodeposit [on|off]
      */
-    private String guessItemTypeFromGoalId(String goalId) {
-        String id = goalId.toLowerCase();
-        
-        // Common mappings
-        if (id.contains("diamond")) return "DIAMOND";
-        if (id.contains("iron")) return "IRON_INGOT";
-        if (id.contains("gold")) return "GOLD_INGOT";
-        if (id.contains("emerald")) return "EMERALD";
-        if (id.contains("coal")) return "COAL";
-        if (id.contains("wood") || id.contains("log")) return "OAK_LOG";
-        if (id.contains("stone")) return "STONE";
-        if (id.contains("cobble")) return "COBBLESTONE";
-        if (id.contains("wheat")) return "WHEAT";
-        if (id.contains("carrot")) return "CARROT";
-        if (id.contains("potato")) return "POTATO";
-        if (id.contains("beef")) return "BEEF";
-        if (id.contains("pork")) return "PORKCHOP";
-        if (id.contains("chicken")) return "CHICKEN";
-        if (id.contains("fish")) return "COD";
-        if (id.contains("netherite")) return "NETHERITE_INGOT";
-        if (id.contains("blaze")) return "BLAZE_ROD";
-        if (id.contains("wart")) return "NETHER_WART";
-        if (id.contains("ghast")) return "GHAST_TEAR";
-        if (id.contains("ancient") || id.contains("debris")) return "ANCIENT_DEBRIS";
-        if (id.contains("quartz")) return "NETHER_QUARTZ";
-        if (id.contains("magma")) return "MAGMA_CREAM";
-        
-        return null; // Couldn't guess
+    private boolean handleAutoDeposit(CommandSender sender, String[] args) {
+        if (!isPlayer(sender)) {
+            sendError(sender, "Only players can use auto-deposit");
+            return true;
+        }
+        if (!autoDepositManager.isEnabled()) {
+            sendError(sender, "Auto-deposit is disabled on this server");
+            return true;
+        }
+
+        Player player = getPlayer(sender);
+        boolean value;
+        if (args.length < 2) {
+            value = !autoDepositManager.isOptedIn(player);
+        } else if (args[1].equalsIgnoreCase("on")) {
+            value = true;
+        } else if (args[1].equalsIgnoreCase("off")) {
+            value = false;
+        } else {
+            sendError(sender, "Usage: /goal autodeposit [on|off]");
+            return true;
+        }
+
+        autoDepositManager.setOptedIn(player, value);
+        if (value) {
+            sendSuccess(sender, "Auto-deposit enabled. Goal items you pick up go straight to active goals.");
+        } else {
+            sendSuccess(sender, "Auto-deposit disabled.");
+        }
+        return true;
     }
 
     private void displayGoalInfo(CommandSender sender, Goal goal) {
@@ -315,10 +354,23 @@ public class GoalPlayerCommand extends BaseCommand {
         sender.sendMessage("§7Description: " + goal.getDescription());
         sender.sendMessage("§7World: §f" + goal.getWorldName());
         sender.sendMessage("§7Progress: " + goal.getCurrentProgress() + " / " + goal.getTargetProgress());
-        sender.sendMessage(String.format("§7Completion: §a%.1f%%", goal.getProgressPercentage()));
+        sender.sendMessage("§7Completion: §a" + TextFormat.percent(goal.getProgressPercentage()) + "%");
+        MaterialRequirements requirements = goal.getMaterialRequirements();
+        for (int i = 0; i < requirements.size(); i++) {
+            String target = requirements.getTarget(i) > 0 ? String.valueOf(requirements.getTarget(i)) : "∞";
+            sender.sendMessage("§7- §f" + requirements.getMaterial(i).name().toLowerCase().replace("_", " ")
+                + "§7: " + requirements.getDelivered(i) + " / " + target + " §8(" + requirements.getPoints(i) + " pts each)");
+        }
         if (goal.getRewardExpansion() > 0) {
             sender.sendMessage("§7Reward Expansion: §f" + goal.getRewardExpansion() + " blocks");
         }
+        if (sender instanceof Player) {
+            long contributed = goal.getContribution(((Player) sender).getUniqueId());
+            sender.sendMessage("§7Your Contribution: §f" + contributed
+                + (goal.getContributionCap() > 0 ? " / " + goal.getContributionCap() : ""));
+        } else if (goal.getContributionCap() > 0) {
+            sender.sendMessage("§7Contribution Cap: §f" + goal.getContributionCap() + " per player");
+        }
         sender.sendMessage("§7Status: " + goal.getState().getColoredName());
         sender.sendMessage("");
     }
@@ -330,20 +382,10 @@ public class GoalPlayerCommand extends BaseCommand {
         sender.sendMessage("§7/goal view <id> - View goal details");
         sender.sendMessage("§7/goal progress <id> - Check goal progress");
         sender.sendMessage("§7/goal info <id> - Display goal information");
-        sender.sendMessage("§7/goal turnin <id> <amount> [item_type] - Turn in items");
+        sender.sendMessage("§7/goal turnin <id> <amount|all> [item_type] - Turn in items");
         sender.sendMessage("§8Example: /goal turnin diamonds 10 DIAMOND");
+        sender.sendMessage("§7/goal depositall - Turn in items for every active goal at once");
+        sender.sendMessage("§7/goal autodeposit [on|off] - Send goal items to goals as you pick them up");
         sender.sendMessage("");
     }
-
-    private String createProgressBar(double percentage) {
-        int filled = (int) (percentage / 10);
-        int empty = 10 - filled;
-
-        String bar = "§a";
-        for (int i = 0; i < filled; i++) bar += "█";
-        bar += "§7";
-        for (int i = 0; i < empty; i++) bar += "█";
-
-        return bar;
-    }
 }
@@ -89,7 +89,7 @@ public class NPCCommand extends BaseCommand {
             sender.sendMessage("§7Players can now right-click the NPC to view goal information.");
 
             // Save changes
-            persistence.saveGoals(tracker.getAllGoals());
+            tracker.saveAllGoals();
             npcManager.saveNPCs();
 
             return true;
@@ -0,0 +1,344 @@
+package com.community.goals.features;
+
+import com.community.goals.Goal;
+import com.community.goals.ItemMatcher;
+import com.community.goals.State;
+import com.community.goals.logic.DepositRouter;
+import com.community.goals.logic.GoalProgressTracker;
+import com.community.goals.logic.MaterialSelection;
+import com.community.goals.logic.TurnInJournal;
+import com.community.goals.logic.TurnInRateLimiter;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Sound;
+import org.bukkit.entity.Item;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Opt-in mode that sends picked up goal items straight to the active goals of
+ * the player's world. Pickups are collected per goal during a tick and
+ * credited in one tracker update on the next tick. Each player's items for a
+ * goal are journaled as one transaction when the batch is flushed, so they are
+ * credited or refunded even if the server stops while the goal is updated.
+ */
+public class AutoDepositManager implements Listener {
+    private final JavaPlugin plugin;
+    private final GoalProgressTracker tracker;
+    private final DepositRouter router;
+    private final TurnInJournal journal;
+    private final TurnInRateLimiter rateLimiter;
+    private final Logger logger;
+    private final boolean enabled;
+    private final NamespacedKey toggleKey;
+    private final Set<UUID> optedIn;
+    private final Map<String, PendingGoal> pending;
+    private final Set<UUID> admitted;
+    private boolean flushScheduled;
+
+    public AutoDepositManager(JavaPlugin plugin, GoalProgressTracker tracker, DepositRouter router,
+                              TurnInJournal journal, TurnInRateLimiter rateLimiter, boolean enabled) {
+        this.plugin = plugin;
+        this.tracker = tracker;
+        this.router = router;
+        this.journal = journal;
+        this.rateLimiter = rateLimiter;
+        this.logger = plugin.getLogger();
+        this.enabled = enabled;
+        this.toggleKey = new NamespacedKey(plugin, "auto-deposit");
+        this.optedIn = new HashSet<>();
+        this.pending = new LinkedHashMap<>();
+        this.admitted = new HashSet<>();
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadToggle(player);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isOptedIn(Player player) {
+        return optedIn.contains(player.getUniqueId());
+    }
+
+    /**
+     * Turn auto-deposit on or off for a player; the choice is stored on the player
+     */
+    public void setOptedIn(Player player, boolean value) {
+        if (value) {
+            optedIn.add(player.getUniqueId());
+            player.getPersistentDataContainer().set(toggleKey, PersistentDataType.BYTE, (byte) 1);
+        } else {
+            optedIn.remove(player.getUniqueId());
+            player.getPersistentDataContainer().remove(toggleKey);
+        }
+    }
+
+    private void loadToggle(Player player) {
+        if (player.getPersistentDataContainer().has(toggleKey, PersistentDataType.BYTE)) {
+            optedIn.add(player.getUniqueId());
+        }
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        loadToggle(event.getPlayer());
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        optedIn.remove(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.HIGH, ignoreCancelled = true)
+    public void onItemPickup(EntityPickupItemEvent event) {
+        if (!enabled || !(event.getEntity() instanceof Player player) || !optedIn.contains(player.getUniqueId())) {
+            return;
+        }
+
+        Item entity = event.getItem();
+        ItemStack stack = entity.getItemStack();
+        List<Goal> goals = router.getGoalsAccepting(player.getWorld().getName(), stack.getType());
+        if (goals.isEmpty()) {
+            return;
+        }
+        // One token covers all of a player's pickups until the next flush
+        if (!admitted.contains(player.getUniqueId())) {
+            if (!rateLimiter.tryAcquire(player)) {
+                return;
+            }
+            admitted.add(player.getUniqueId());
+        }
+
+        int amount = stack.getAmount();
+        int taken = 0;
+        for (Goal goal : goals) {
+            if (goal.isCompleted() || goal.getState() != State.ACTIVE) {
+                continue;
+            }
+            PendingGoal batch = pending.get(goal.getId());
+            if (batch == null) {
+                batch = new PendingGoal(goal);
+                pending.put(goal.getId(), batch);
+            }
+            taken += batch.offer(player, stack, amount - taken, entity.getLocation());
+            if (taken >= amount) {
+                break;
+            }
+        }
+        if (taken <= 0) {
+            return;
+        }
+
+        event.setCancelled(true);
+        if (taken >= amount) {
+            entity.remove();
+        } else {
+            stack.setAmount(amount - taken);
+            entity.setItemStack(stack);
+        }
+        player.playSound(player.getLocation(), Sound.ENTITY_ITEM_PICKUP, 0.2f, 1.4f);
+        scheduleFlush();
+    }
+
+    private void scheduleFlush() {
+        if (flushScheduled) {
+            return;
+        }
+        flushScheduled = true;
+        Bukkit.getScheduler().runTask(plugin, this::flush);
+    }
+
+    /**
+     * Credit everything collected since the last flush in one tracker update.
+     * Items taken for a goal that was removed or stopped accepting items in
+     * the meantime are given back.
+     */
+    @SuppressWarnings("deprecation")
+    public void flush() {
+        flushScheduled = false;
+        admitted.clear();
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, long[]> countsByGoal = new LinkedHashMap<>();
+        Map<UUID, Long> pointsByPlayer = new HashMap<>();
+        List<String> transactionIds = new ArrayList<>();
+        List<Share> returned = new ArrayList<>();
+        for (PendingGoal batch : pending.values()) {
+            Goal goal = batch.goal;
+            if (tracker.getGoal(goal.getId()) != goal || goal.isCompleted() || goal.getState() != State.ACTIVE) {
+                returned.addAll(batch.shares.values());
+                continue;
+            }
+            for (Share share : batch.shares.values()) {
+                journal.begin(share.transactionId, share.playerId, share.playerName,
+                    Collections.singletonMap(goal.getId(), share.counts), share.items);
+                goal.addContribution(share.playerId, share.points);
+                pointsByPlayer.merge(share.playerId, share.points, Long::sum);
+                transactionIds.add(share.transactionId);
+            }
+            countsByGoal.put(goal.getId(), batch.selection.getItemCounts());
+        }
+        pending.clear();
+        giveBack(returned);
+        if (countsByGoal.isEmpty()) {
+            return;
+        }
+
+        for (UUID playerId : pointsByPlayer.keySet()) {
+            Player player = Bukkit.getPlayer(playerId);
+            if (player != null) {
+                tracker.recordContributorName(playerId, player.getName());
+            }
+        }
+        try {
+            tracker.depositMaterialsBatch(countsByGoal, transactionIds, null);
+        } finally {
+            // Progress is applied before listeners run, so commit even if one of them failed
+            for (String transactionId : transactionIds) {
+                journal.commit(transactionId);
+            }
+        }
+
+        for (Map.Entry<UUID, Long> entry : pointsByPlayer.entrySet()) {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            if (player != null) {
+                player.sendActionBar("§a+" + entry.getValue() + " goal points");
+            }
+        }
+    }
+
+    /**
+     * Return items to their players, dropping what doesn't fit (or what an
+     * offline player picked up) on the ground. Nothing was journaled for them yet.
+     */
+    private void giveBack(List<Share> shares) {
+        Set<UUID> notified = new HashSet<>();
+        for (Share share : shares) {
+            Player player = Bukkit.getPlayer(share.playerId);
+            if (player == null) {
+                for (ItemStack items : share.items) {
+                    share.location.getWorld().dropItemNaturally(share.location, items);
+                }
+            } else {
+                ItemStack[] items = share.items.toArray(new ItemStack[0]);
+                for (ItemStack leftover : player.getInventory().addItem(items).values()) {
+                    player.getWorld().dropItemNaturally(player.getLocation(), leftover);
+                }
+                if (notified.add(share.playerId)) {
+                    player.sendMessage("§eA goal stopped accepting items; your auto-deposited items were returned.");
+                }
+            }
+        }
+        if (!shares.isEmpty()) {
+            logger.info("Returned " + shares.size() + " auto-deposit pickup(s) for goals that stopped accepting items.");
+        }
+    }
+
+    /**
+     * Items collected for one goal during the current tick. A single selection
+     * tracks the goal's remaining room across all players; each player's items
+     * and points are gathered into one share so contribution caps hold within
+     * the tick too and the whole share is journaled as one transaction.
+     */
+    private class PendingGoal {
+        private final Goal goal;
+        private final MaterialSelection selection;
+        private final Map<UUID, Share> shares;
+
+        private PendingGoal(Goal goal) {
+            this.goal = goal;
+            this.selection = new MaterialSelection(goal, Long.MAX_VALUE);
+            this.shares = new LinkedHashMap<>();
+        }
+
+        /**
+         * Take up to {@code available} items of the stack for this goal
+         */
+        private int offer(Player player, ItemStack item, int available, Location location) {
+            int slot = goal.getItemMatcher().slotOf(item);
+            if (slot == ItemMatcher.REJECTED) {
+                return 0;
+            }
+            UUID playerId = player.getUniqueId();
+            Share share = shares.get(playerId);
+            long points = goal.getMaterialRequirements().getSlotPoints(slot);
+            long allowance = goal.getRemainingAllowance(playerId);
+            if (allowance != Long.MAX_VALUE) {
+                allowance -= share == null ? 0 : share.points;
+                available = (int) Math.min(available, Math.max(0, allowance / points));
+            }
+
+            int accepted = (int) selection.offerCount(slot, available);
+            if (accepted <= 0) {
+                return 0;
+            }
+            if (share == null) {
+                share = new Share(TurnInJournal.newTransactionId(), playerId, player.getName(),
+                    goal.getItemMatcher().getSlotCount(), location);
+                shares.put(playerId, share);
+            }
+            share.add(slot, item, accepted, accepted * points);
+            return accepted;
+        }
+    }
+
+    /**
+     * One player's items for one goal during a tick, journaled as a single transaction
+     */
+    private static class Share {
+        private final String transactionId;
+        private final UUID playerId;
+        private final String playerName;
+        private final long[] counts;
+        private final List<ItemStack> items;
+        private final Location location;
+        private long points;
+
+        private Share(String transactionId, UUID playerId, String playerName, int slotCount, Location location) {
+            this.transactionId = transactionId;
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.counts = new long[slotCount];
+            this.items = new ArrayList<>();
+            this.location = location;
+        }
+
+        private void add(int slot, ItemStack item, int amount, long points) {
+            counts[slot] += amount;
+            this.points += points;
+            for (ItemStack stack : items) {
+                if (amount <= 0) {
+                    break;
+                }
+                if (stack.isSimilar(item) && stack.getAmount() < stack.getMaxStackSize()) {
+                    int moved = Math.min(amount, stack.getMaxStackSize() - stack.getAmount());
+                    stack.setAmount(stack.getAmount() + moved);
+                    amount -= moved;
+                }
+            }
+            while (amount > 0) {
+                ItemStack stack = item.clone();
+                int moved = Math.min(amount, Math.max(1, stack.getMaxStackSize()));
+                stack.setAmount(moved);
+                items.add(stack);
+                amount -= moved;
+            }
+        }
+    }
+}
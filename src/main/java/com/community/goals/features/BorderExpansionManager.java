@@ -1,22 +1,40 @@
 package com.community.goals.features;
 
 import com.community.goals.Border;
+import com.community.goals.TextFormat;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.WorldBorder;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
- * Manages world border expansion for community goals
+ * Manages world border expansion for community goals.
+ *
+ * The configured {@link Border} size is always the size the border is heading
+ * for. Expansions and resizes raise that target and then move the live border
+ * from wherever it is right now at a steady blocks-per-second rate, so growth
+ * that arrives mid-animation is folded into the running animation instead of
+ * restarting it from an intermediate size.
  */
 public class BorderExpansionManager {
+    private static final long SNAPSHOT_REFRESH_MILLIS = 250;
+
     private final Border borderConfig;
+    private final double blocksPerSecond;
+    private final BorderHistory history;
     private final Logger logger;
+    private final List<BorderListener> listeners;
+    private volatile BorderSnapshot snapshot;
 
-    public BorderExpansionManager(Border borderConfig, Logger logger) {
+    public BorderExpansionManager(Border borderConfig, double blocksPerSecond, BorderHistory history, Logger logger) {
         this.borderConfig = borderConfig;
+        this.blocksPerSecond = blocksPerSecond;
+        this.history = history;
         this.logger = logger;
+        this.listeners = new ArrayList<>();
         initializeBorder();
     }
 
@@ -42,6 +60,7 @@ public class BorderExpansionManager {
         } catch (Exception e) {
             logger.warning("Failed to initialize world border: " + e.getMessage());
         }
+        publishSnapshot(borderConfig.getSize(), borderConfig.getSize(), 0);
     }
 
     /**
@@ -55,6 +74,14 @@ public class BorderExpansionManager {
      * Expand the world border by a custom amount
      */
     public boolean expandBorder(double amount) {
+        return expandBorder(amount, "admin");
+    }
+
+    /**
+     * Expand the world border by a custom amount, recording the goal (or
+     * other source) responsible in the border history
+     */
+    public boolean expandBorder(double amount, String source) {
         try {
             World world = Bukkit.getWorld(borderConfig.getWorldName());
             if (world == null) {
@@ -62,17 +89,15 @@ public class BorderExpansionManager {
                 return false;
             }
 
-            WorldBorder wb = world.getWorldBorder();
-            double currentSize = wb.getSize();
-            double newSize = currentSize + amount;
-
-            // Update our internal config immediately (before animation)
+            // Grow the target, not the live size, so overlapping expansions add up
+            double previousTarget = borderConfig.getSize();
             borderConfig.expandBorder(amount);
-            
-            // Animate the border expansion over 30 seconds
-            wb.setSize(newSize, 30);
-            
-            logger.info("Border expanded from " + currentSize + " to " + newSize + " (+" + amount + ")");
+            long seconds = animateTo(world.getWorldBorder(), borderConfig.getSize());
+            history.record(source, previousTarget, borderConfig.getSize());
+            notifyBorderChanged();
+
+            logger.info("Border expanded from " + previousTarget + " to " + borderConfig.getSize()
+                + " (+" + amount + ", " + seconds + "s)");
             return true;
         } catch (Exception e) {
             logger.warning("Failed to expand world border: " + e.getMessage());
@@ -84,6 +109,23 @@ public class BorderExpansionManager {
      * Set the world border to a specific size
      */
     public boolean setSize(double size) {
+        return resize(size, "admin");
+    }
+
+    /**
+     * Undo the last {@code count} size changes by returning to the size
+     * before the oldest of them. The rollback is itself recorded.
+     */
+    public boolean rollback(int count) {
+        BorderHistory.Entry entry = history.getRecent(count);
+        return entry != null && resize(entry.beforeSize, "rollback");
+    }
+
+    public BorderHistory getHistory() {
+        return history;
+    }
+
+    private boolean resize(double size, String source) {
         try {
             World world = Bukkit.getWorld(borderConfig.getWorldName());
             if (world == null) {
@@ -91,9 +133,11 @@ public class BorderExpansionManager {
                 return false;
             }
 
-            WorldBorder wb = world.getWorldBorder();
-            wb.setSize(size, 30);
+            double previousTarget = borderConfig.getSize();
             borderConfig.setSize(size);
+            animateTo(world.getWorldBorder(), size);
+            history.record(source, previousTarget, size);
+            notifyBorderChanged();
             return true;
         } catch (Exception e) {
             logger.warning("Failed to set world border size: " + e.getMessage());
@@ -101,6 +145,38 @@ public class BorderExpansionManager {
         }
     }
 
+    /**
+     * Move the live border from its current size to the target at the
+     * configured rate, replacing any animation still running.
+     * Returns the animation length in seconds.
+     */
+    private long animateTo(WorldBorder wb, double targetSize) {
+        double currentSize = wb.getSize();
+        long seconds = animationSeconds(currentSize, targetSize);
+        if (seconds > 0) {
+            wb.setSize(targetSize, seconds);
+        } else {
+            wb.setSize(targetSize);
+        }
+        publishSnapshot(currentSize, targetSize, seconds);
+        return seconds;
+    }
+
+    private long animationSeconds(double fromSize, double toSize) {
+        double distance = Math.abs(toSize - fromSize);
+        if (blocksPerSecond <= 0 || distance < 0.0001) {
+            return 0;
+        }
+        return Math.max(1L, (long) Math.ceil(distance / blocksPerSecond));
+    }
+
+    /**
+     * Blocks per second the border grows or shrinks; 0 or less resizes instantly
+     */
+    public double getBlocksPerSecond() {
+        return blocksPerSecond;
+    }
+
     /**
      * Get current world border size
      */
@@ -142,6 +218,9 @@ public class BorderExpansionManager {
             wb.setCenter(x, z);
             borderConfig.setCenterX(x);
             borderConfig.setCenterZ(z);
+            BorderSnapshot current = snapshot;
+            publishSnapshot(current.getSize(), current.targetSize, current.remainingSeconds(System.currentTimeMillis()));
+            notifyBorderChanged();
             return true;
         } catch (Exception e) {
             logger.warning("Failed to set world border center: " + e.getMessage());
@@ -149,6 +228,29 @@ public class BorderExpansionManager {
         }
     }
 
+    /**
+     * Set how far the border grows for goals without their own reward
+     */
+    public void setExpansionAmount(double amount) {
+        borderConfig.setExpansionAmount(amount);
+        BorderSnapshot current = snapshot;
+        publishSnapshot(current.getSize(), current.targetSize, current.remainingSeconds(System.currentTimeMillis()));
+        notifyBorderChanged();
+    }
+
+    /**
+     * Register a listener for target size, center and expansion amount changes
+     */
+    public void addListener(BorderListener listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyBorderChanged() {
+        for (BorderListener listener : listeners) {
+            listener.onBorderChanged(borderConfig);
+        }
+    }
+
     /**
      * Get the configured border
      */
@@ -163,6 +265,59 @@ public class BorderExpansionManager {
         initializeBorder();
     }
 
+    /**
+     * Border state for placeholders, safe to read from any thread. While the
+     * border is animating, the size is re-derived from the animation at most
+     * every {@value #SNAPSHOT_REFRESH_MILLIS} ms; the world is never touched.
+     * {@link #syncSnapshot()} corrects it for changes made outside this manager.
+     */
+    public BorderSnapshot getSnapshot() {
+        BorderSnapshot current = snapshot;
+        long now = System.currentTimeMillis();
+        if (current.isAnimating(now) && now - current.createdAt >= SNAPSHOT_REFRESH_MILLIS) {
+            current = current.at(now);
+            snapshot = current;
+        }
+        return current;
+    }
+
+    /**
+     * Compare the snapshot with the live border and take the live values if
+     * something else (vanilla /worldborder, another plugin) changed it.
+     * Must run on the main thread.
+     */
+    public void syncSnapshot() {
+        World world = Bukkit.getWorld(borderConfig.getWorldName());
+        if (world == null) {
+            return;
+        }
+        WorldBorder wb = world.getWorldBorder();
+        BorderSnapshot current = getSnapshot();
+        double liveSize = wb.getSize();
+        double liveX = wb.getCenter().getX();
+        double liveZ = wb.getCenter().getZ();
+        // Our own animations may drift from the estimate by up to a tick or so
+        double tolerance = current.endMillis > System.currentTimeMillis() ? 1.0 + blocksPerSecond : 0.5;
+        if (Math.abs(liveSize - current.getSize()) <= tolerance
+            && Math.abs(liveX - current.centerX) < 0.01 && Math.abs(liveZ - current.centerZ) < 0.01) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        snapshot = new BorderSnapshot(borderConfig.getWorldName(), liveX, liveZ, borderConfig.getExpansionAmount(),
+            liveSize, liveSize, now, now, now);
+    }
+
+    /**
+     * Record a size change (animated over {@code seconds}, or instant for 0) together with
+     * the current center and expansion amount
+     */
+    private void publishSnapshot(double fromSize, double toSize, long seconds) {
+        long now = System.currentTimeMillis();
+        snapshot = new BorderSnapshot(borderConfig.getWorldName(), borderConfig.getCenterX(),
+            borderConfig.getCenterZ(), borderConfig.getExpansionAmount(), fromSize, toSize,
+            now, now + seconds * 1000, now);
+    }
+
     /**
      * Get information about current border state
      */
@@ -187,6 +342,13 @@ public class BorderExpansionManager {
         );
     }
 
+    /**
+     * Listener for changes to a border's configuration
+     */
+    public interface BorderListener {
+        void onBorderChanged(Border border);
+    }
+
     /**
      * Information about a world border
      */
@@ -214,4 +376,81 @@ public class BorderExpansionManager {
             );
         }
     }
+
+    /**
+     * Immutable border state with every placeholder value preformatted.
+     * WorldBorder animations are linear, so the size at any moment follows
+     * from the start and target sizes and the animation window.
+     */
+    public static final class BorderSnapshot {
+        public final String worldName;
+        public final String sizeText;
+        public final String centerXText;
+        public final String centerZText;
+        public final String expansionText;
+
+        private final double centerX;
+        private final double centerZ;
+        private final double expansionAmount;
+        private final double fromSize;
+        private final double targetSize;
+        private final long startMillis;
+        private final long endMillis;
+        private final long createdAt;
+        private final double size;
+
+        private BorderSnapshot(String worldName, double centerX, double centerZ, double expansionAmount,
+                               double fromSize, double targetSize, long startMillis, long endMillis, long createdAt) {
+            this.worldName = worldName;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.expansionAmount = expansionAmount;
+            this.fromSize = fromSize;
+            this.targetSize = targetSize;
+            this.startMillis = startMillis;
+            this.endMillis = endMillis;
+            this.createdAt = createdAt;
+            if (createdAt >= endMillis) {
+                this.size = targetSize;
+            } else {
+                double progress = (double) (createdAt - startMillis) / (endMillis - startMillis);
+                this.size = fromSize + (targetSize - fromSize) * progress;
+            }
+            this.sizeText = formatNumber(size);
+            this.centerXText = formatNumber(centerX);
+            this.centerZText = formatNumber(centerZ);
+            this.expansionText = formatNumber(expansionAmount);
+        }
+
+        public double getSize() {
+            return size;
+        }
+
+        private boolean isAnimating(long now) {
+            return createdAt < endMillis && now > createdAt;
+        }
+
+        private long remainingSeconds(long now) {
+            return Math.max(0, (endMillis - now) / 1000);
+        }
+
+        /**
+         * The same animation seen at a later moment
+         */
+        private BorderSnapshot at(long now) {
+            return new BorderSnapshot(worldName, centerX, centerZ, expansionAmount, fromSize, targetSize,
+                startMillis, endMillis, Math.min(now, endMillis));
+        }
+
+        private static String formatNumber(double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                return "0";
+            }
+            long rounded = Math.round(value);
+            if (Math.abs(value - rounded) < 0.0001) {
+                return String.valueOf(rounded);
+            }
+            return TextFormat.fixed(value, 1);
+        }
+    }
 }
@@ -0,0 +1,140 @@
+package com.community.goals.features;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Append-only log of one world's border size changes. Every change is written
+ * to the world's log file as one tab-separated line (time, source, size
+ * before, size after, amount); the latest entries are also kept in a fixed
+ * size ring so history and rollback never read the file.
+ */
+public class BorderHistory {
+    private final Path logPath;
+    private final Logger logger;
+    private final Entry[] ring;
+    private int next;
+    private int size;
+
+    public BorderHistory(Path logPath, int capacity, Logger logger) {
+        this.logPath = logPath;
+        this.logger = logger;
+        this.ring = new Entry[Math.max(1, capacity)];
+        load();
+    }
+
+    /**
+     * Record a size change. The source is a goal id, or "admin" / "rollback".
+     */
+    public void record(String source, double beforeSize, double afterSize) {
+        Entry entry = new Entry(System.currentTimeMillis(), source, beforeSize, afterSize);
+        add(entry);
+        try {
+            Files.createDirectories(logPath.getParent());
+            try (Writer writer = Files.newBufferedWriter(logPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(entry.encode());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to write border history " + logPath.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Number of entries held in memory
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Entry {@code n} changes back, 1 being the most recent; null past the ring
+     */
+    public Entry getRecent(int n) {
+        if (n < 1 || n > size) {
+            return null;
+        }
+        return ring[Math.floorMod(next - n, ring.length)];
+    }
+
+    /**
+     * Up to {@code limit} entries, most recent first
+     */
+    public List<Entry> getRecentEntries(int limit) {
+        List<Entry> entries = new ArrayList<>();
+        for (int n = 1; n <= Math.min(limit, size); n++) {
+            entries.add(getRecent(n));
+        }
+        return entries;
+    }
+
+    private void add(Entry entry) {
+        ring[next] = entry;
+        next = (next + 1) % ring.length;
+        size = Math.min(size + 1, ring.length);
+    }
+
+    private void load() {
+        if (!Files.exists(logPath)) {
+            return;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(logPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                Entry entry = Entry.decode(line);
+                if (entry != null) {
+                    add(entry);
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to read border history " + logPath.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * One border size change
+     */
+    public static final class Entry {
+        public final long timestamp;
+        public final String source;
+        public final double beforeSize;
+        public final double afterSize;
+
+        private Entry(long timestamp, String source, double beforeSize, double afterSize) {
+            this.timestamp = timestamp;
+            this.source = source;
+            this.beforeSize = beforeSize;
+            this.afterSize = afterSize;
+        }
+
+        public double getAmount() {
+            return afterSize - beforeSize;
+        }
+
+        private String encode() {
+            return timestamp + "\t" + source + "\t" + beforeSize + "\t" + afterSize + "\t" + getAmount();
+        }
+
+        private static Entry decode(String line) {
+            String[] parts = line.split("\t");
+            if (parts.length < 4) {
+                return null;
+            }
+            try {
+                return new Entry(Long.parseLong(parts[0]), parts[1],
+                    Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
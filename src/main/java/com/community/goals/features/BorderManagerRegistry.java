@@ -3,6 +3,8 @@ package com.community.goals.features;
 import com.community.goals.Border;
 import com.community.goals.persistence.ConfigManager;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
 import java.util.logging.Logger;
 
@@ -20,12 +22,15 @@ public class BorderManagerRegistry {
         this.multiWorldConfig = multiWorldConfig;
     }
 
-    public static BorderManagerRegistry fromConfig(ConfigManager configManager, Logger logger) {
+    public static BorderManagerRegistry fromConfig(ConfigManager configManager, String dataFolderPath, Logger logger) {
         Map<String, BorderExpansionManager> managers = new HashMap<>();
+        Path historyFolder = Paths.get(dataFolderPath).resolve("border-history");
+        int historySize = configManager.getInt("world-borders.history-size", 50);
         Object rawWorlds = configManager.get("world-borders.worlds");
         boolean multiWorldConfig = rawWorlds instanceof Map;
 
         if (multiWorldConfig) {
+            double defaultRate = configManager.getDouble("world-borders.blocks-per-second", 1.0);
             @SuppressWarnings("unchecked")
             Map<String, Object> worlds = (Map<String, Object>) rawWorlds;
             for (Map.Entry<String, Object> entry : worlds.entrySet()) {
@@ -43,8 +48,10 @@ public class BorderManagerRegistry {
                 long centerZ = getLong(worldConfig, "center-z", 0L);
                 long initialSize = getLong(worldConfig, "initial-size", 50L);
                 long expansionAmount = getLong(worldConfig, "expansion-amount", 20L);
+                double blocksPerSecond = getDouble(worldConfig, "blocks-per-second", defaultRate);
                 Border borderConfig = new Border(worldName, centerX, centerZ, initialSize, expansionAmount);
-                BorderExpansionManager manager = new BorderExpansionManager(borderConfig, logger);
+                BorderHistory history = new BorderHistory(historyFolder.resolve(worldName + ".log"), historySize, logger);
+                BorderExpansionManager manager = new BorderExpansionManager(borderConfig, blocksPerSecond, history, logger);
                 managers.put(normalize(worldName), manager);
             }
         } else {
@@ -55,8 +62,10 @@ public class BorderManagerRegistry {
                 long centerZ = configManager.getLong("world-border.center-z", 0L);
                 long initialSize = configManager.getLong("world-border.initial-size", 50L);
                 long expansionAmount = configManager.getLong("world-border.expansion-amount", 20L);
+                double blocksPerSecond = configManager.getDouble("world-border.blocks-per-second", 1.0);
                 Border borderConfig = new Border(worldName, centerX, centerZ, initialSize, expansionAmount);
-                BorderExpansionManager manager = new BorderExpansionManager(borderConfig, logger);
+                BorderHistory history = new BorderHistory(historyFolder.resolve(worldName + ".log"), historySize, logger);
+                BorderExpansionManager manager = new BorderExpansionManager(borderConfig, blocksPerSecond, history, logger);
                 managers.put(normalize(worldName), manager);
             }
         }
@@ -91,6 +100,52 @@ public class BorderManagerRegistry {
         return names;
     }
 
+    /**
+     * Register a listener with every world's border manager
+     */
+    public void addListener(BorderExpansionManager.BorderListener listener) {
+        for (BorderExpansionManager manager : managers.values()) {
+            manager.addListener(listener);
+        }
+    }
+
+    /**
+     * Border of a world as last saved to the config, or null if it has none.
+     * Used before the managers exist, while worlds are not loaded yet.
+     */
+    public static Border readSavedBorder(ConfigManager configManager, String worldName) {
+        Object rawWorlds = configManager.get("world-borders.worlds");
+        if (rawWorlds instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) rawWorlds).entrySet()) {
+                if (!(entry.getValue() instanceof Map) || !String.valueOf(entry.getKey()).equalsIgnoreCase(worldName)) {
+                    continue;
+                }
+                @SuppressWarnings("unchecked")
+                Map<String, Object> worldConfig = (Map<String, Object>) entry.getValue();
+                return new Border(worldName, getDouble(worldConfig, "center-x", 0.0),
+                    getDouble(worldConfig, "center-z", 0.0), getDouble(worldConfig, "initial-size", 50.0),
+                    getDouble(worldConfig, "expansion-amount", 20.0));
+            }
+            return null;
+        }
+        if (!configManager.getString("world-border.world", "world").equalsIgnoreCase(worldName)) {
+            return null;
+        }
+        return new Border(worldName, configManager.getDouble("world-border.center-x", 0.0),
+            configManager.getDouble("world-border.center-z", 0.0),
+            configManager.getDouble("world-border.initial-size", 50.0),
+            configManager.getDouble("world-border.expansion-amount", 20.0));
+    }
+
+    /**
+     * Re-check every border snapshot against its live border (main thread)
+     */
+    public void syncSnapshots() {
+        for (BorderExpansionManager manager : managers.values()) {
+            manager.syncSnapshot();
+        }
+    }
+
     public String getDefaultWorld() {
         return defaultWorld;
     }
@@ -140,6 +195,14 @@ public class BorderManagerRegistry {
         return defaultValue;
     }
 
+    private static double getDouble(Map<String, Object> map, String key, double defaultValue) {
+        Object value = map.get(key);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        return defaultValue;
+    }
+
     private static String normalize(String worldName) {
         return worldName.toLowerCase(Locale.ROOT);
     }
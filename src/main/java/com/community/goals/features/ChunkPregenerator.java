@@ -0,0 +1,313 @@
+package com.community.goals.features;
+
+import com.community.goals.Border;
+import com.community.goals.Goal;
+import com.community.goals.State;
+import com.community.goals.logic.GoalProgressTracker;
+import com.community.goals.persistence.PersistenceManager;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Generates the chunks a world border is about to open up before it moves.
+ * Once an active goal passes the configured progress, the chunks between the
+ * border's target size and its size after the goal's reward are requested
+ * through Paper's async chunk API, one square ring at a time from the inside
+ * out. Requests pause while the average tick time is above the MSPT limit,
+ * and each world's cursor is saved so an interrupted run resumes after a
+ * restart.
+ */
+public class ChunkPregenerator implements GoalProgressTracker.ProgressListener {
+    // Generate one ring past the new edge so players looking over it see terrain
+    private static final int EDGE_MARGIN_RINGS = 1;
+
+    private final JavaPlugin plugin;
+    private final BorderManagerRegistry borderRegistry;
+    private final PersistenceManager persistenceManager;
+    private final Logger logger;
+    private final boolean enabled;
+    private final double startPercent;
+    private final double maxMspt;
+    private final int chunksPerTick;
+    private final int maxInFlight;
+    private final Map<String, Job> jobs;
+    private int inFlight;
+    private BukkitTask task;
+
+    public ChunkPregenerator(JavaPlugin plugin, GoalProgressTracker tracker, BorderManagerRegistry borderRegistry,
+                             PersistenceManager persistenceManager, boolean enabled, double startPercent,
+                             double maxMspt, int chunksPerTick, int maxInFlight) {
+        this.plugin = plugin;
+        this.borderRegistry = borderRegistry;
+        this.persistenceManager = persistenceManager;
+        this.logger = plugin.getLogger();
+        this.enabled = enabled;
+        this.startPercent = startPercent;
+        this.maxMspt = maxMspt;
+        this.chunksPerTick = Math.max(1, chunksPerTick);
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.jobs = new LinkedHashMap<>();
+        if (!enabled) {
+            return;
+        }
+
+        loadJobs();
+        for (Goal goal : tracker.getActiveGoals()) {
+            consider(goal);
+        }
+        if (hasWork()) {
+            logger.info("Resuming chunk pre-generation for " + jobs.size() + " world(s).");
+            start();
+        }
+    }
+
+    /**
+     * Queue the reward area of a goal that has passed the start threshold.
+     * Areas already covered by the world's job are not requested twice.
+     */
+    private void consider(Goal goal) {
+        if (!enabled || goal.isCompleted() || goal.getState() != State.ACTIVE
+            || goal.getProgressPercentage() < startPercent) {
+            return;
+        }
+        BorderExpansionManager manager = borderRegistry.getManager(goal.getWorldName());
+        if (manager == null) {
+            return;
+        }
+
+        Border border = manager.getBorderConfig();
+        double reward = goal.getRewardExpansion() > 0 ? goal.getRewardExpansion() : border.getExpansionAmount();
+        int centerX = (int) Math.floor(border.getCenterX()) >> 4;
+        int centerZ = (int) Math.floor(border.getCenterZ()) >> 4;
+        int firstRing = (int) Math.floor(border.getSize() / 32.0);
+        int lastRing = (int) Math.ceil((border.getSize() + reward) / 32.0) + EDGE_MARGIN_RINGS;
+
+        String worldName = border.getWorldName();
+        Job job = jobs.get(worldName);
+        if (job == null || job.centerX != centerX || job.centerZ != centerZ) {
+            // A moved center invalidates the old rings
+            job = new Job(worldName, centerX, centerZ, firstRing, 0, firstRing - 1);
+            jobs.put(worldName, job);
+        }
+        if (job.ring < firstRing) {
+            job.ring = firstRing;
+            job.index = 0;
+        }
+        if (lastRing <= job.lastRing) {
+            return;
+        }
+
+        job.lastRing = lastRing;
+        logger.info("Pre-generating chunk rings " + job.ring + "-" + lastRing + " in " + worldName
+            + " ahead of goal " + goal.getId() + ".");
+        saveJobs();
+        start();
+    }
+
+    private boolean hasWork() {
+        for (Job job : jobs.values()) {
+            if (!job.isDone()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void start() {
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1L, 1L);
+        }
+    }
+
+    private void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    private void tick() {
+        if (!hasWork()) {
+            if (inFlight == 0) {
+                stop();
+            }
+            return;
+        }
+        if (Bukkit.getAverageTickTime() > maxMspt) {
+            return;
+        }
+
+        int budget = Math.min(chunksPerTick, maxInFlight - inFlight);
+        boolean ringFinished = false;
+        for (Job job : jobs.values()) {
+            if (budget <= 0) {
+                break;
+            }
+            World world = job.isDone() ? null : Bukkit.getWorld(job.worldName);
+            if (world == null) {
+                continue;
+            }
+            while (budget > 0 && !job.isDone()) {
+                request(world, job.centerX + job.offsetX(), job.centerZ + job.offsetZ());
+                budget--;
+                ringFinished |= job.advance();
+            }
+            if (job.isDone()) {
+                logger.info("Finished pre-generating chunks in " + job.worldName + " up to ring " + job.lastRing + ".");
+            }
+        }
+        if (ringFinished) {
+            saveJobs();
+        }
+    }
+
+    private void request(World world, int chunkX, int chunkZ) {
+        inFlight++;
+        world.getChunkAtAsync(chunkX, chunkZ, true).whenComplete((chunk, error) -> {
+            // Paper completes chunk futures on the main thread
+            inFlight--;
+            if (error != null) {
+                logger.warning("Failed to pre-generate chunk " + chunkX + ", " + chunkZ + " in "
+                    + world.getName() + ": " + error.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stop requesting chunks and save where each world got to
+     */
+    public void close() {
+        stop();
+        if (enabled) {
+            saveJobs();
+        }
+    }
+
+    private void saveJobs() {
+        Map<String, Map<String, Object>> data = new LinkedHashMap<>();
+        for (Job job : jobs.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("center-x", job.centerX);
+            entry.put("center-z", job.centerZ);
+            entry.put("ring", job.ring);
+            entry.put("index", job.index);
+            entry.put("last-ring", job.lastRing);
+            data.put(job.worldName, entry);
+        }
+        persistenceManager.savePregeneration(data);
+    }
+
+    private void loadJobs() {
+        for (Map.Entry<String, Map<String, Object>> entry : persistenceManager.loadPregeneration().entrySet()) {
+            Map<String, Object> data = entry.getValue();
+            jobs.put(entry.getKey(), new Job(entry.getKey(), getInt(data, "center-x"), getInt(data, "center-z"),
+                getInt(data, "ring"), getInt(data, "index"), getInt(data, "last-ring")));
+        }
+    }
+
+    private static int getInt(Map<String, Object> map, String key) {
+        Object value = map.get(key);
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    @Override
+    public void onProgressUpdated(Goal goal, long previousProgress, long amountAdded) {
+        consider(goal);
+    }
+
+    @Override
+    public void onGoalCompleted(Goal goal) {
+    }
+
+    @Override
+    public void onGoalCreated(Goal goal) {
+    }
+
+    @Override
+    public void onGoalDeleted(Goal goal) {
+    }
+
+    @Override
+    public void onGoalUpdated(Goal goal) {
+        consider(goal);
+    }
+
+    /**
+     * Pre-generation cursor for one world. Ring {@code r} is the square of
+     * chunks at Chebyshev distance {@code r} from the border's center chunk,
+     * walked clockwise from its north-west corner.
+     */
+    private static class Job {
+        private final String worldName;
+        private final int centerX;
+        private final int centerZ;
+        private int ring;
+        private int index;
+        private int lastRing;
+
+        private Job(String worldName, int centerX, int centerZ, int ring, int index, int lastRing) {
+            this.worldName = worldName;
+            this.centerX = centerX;
+            this.centerZ = centerZ;
+            this.ring = ring;
+            this.index = index;
+            this.lastRing = lastRing;
+        }
+
+        private boolean isDone() {
+            return ring > lastRing;
+        }
+
+        private int offsetX() {
+            if (ring == 0) {
+                return 0;
+            }
+            int step = index % (2 * ring);
+            switch (index / (2 * ring)) {
+                case 0:
+                    return -ring + step;
+                case 1:
+                    return ring;
+                case 2:
+                    return ring - step;
+                default:
+                    return -ring;
+            }
+        }
+
+        private int offsetZ() {
+            if (ring == 0) {
+                return 0;
+            }
+            int step = index % (2 * ring);
+            switch (index / (2 * ring)) {
+                case 0:
+                    return -ring;
+                case 1:
+                    return -ring + step;
+                case 2:
+                    return ring;
+                default:
+                    return ring - step;
+            }
+        }
+
+        /**
+         * Move to the next chunk; returns true when a ring was finished
+         */
+        private boolean advance() {
+            index++;
+            if (index < (ring == 0 ? 1 : 8 * ring)) {
+                return false;
+            }
+            ring++;
+            index = 0;
+            return true;
+        }
+    }
+}
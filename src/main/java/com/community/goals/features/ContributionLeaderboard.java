@@ -0,0 +1,181 @@
+package com.community.goals.features;
+
+import com.community.goals.Goal;
+import com.community.goals.logic.GoalProgressTracker;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-goal contribution rankings for placeholders. Goals whose contributions
+ * changed are marked dirty and re-ranked together on the next tick, so a goal
+ * is sorted at most once per tick no matter how often it is read. Readers
+ * only ever see finished snapshots; they never sort or scan.
+ */
+public class ContributionLeaderboard implements GoalProgressTracker.ProgressListener {
+    private final JavaPlugin plugin;
+    private final GoalProgressTracker tracker;
+    private final Map<String, Snapshot> snapshots;
+    private final Map<String, Goal> dirty;
+    private boolean refreshScheduled;
+
+    public ContributionLeaderboard(JavaPlugin plugin, GoalProgressTracker tracker) {
+        this.plugin = plugin;
+        this.tracker = tracker;
+        this.snapshots = new ConcurrentHashMap<>();
+        this.dirty = new LinkedHashMap<>();
+        for (Goal goal : tracker.getAllGoals()) {
+            snapshots.put(goal.getId(), build(goal));
+        }
+    }
+
+    /**
+     * Latest ranking of a goal; empty until its first contribution is ranked
+     */
+    public Snapshot getSnapshot(Goal goal) {
+        Snapshot snapshot = snapshots.get(goal.getId());
+        return snapshot != null ? snapshot : Snapshot.EMPTY;
+    }
+
+    private void markDirty(Goal goal) {
+        dirty.put(goal.getId(), goal);
+        if (refreshScheduled) {
+            return;
+        }
+        refreshScheduled = true;
+        Bukkit.getScheduler().runTask(plugin, this::refresh);
+    }
+
+    private void refresh() {
+        refreshScheduled = false;
+        for (Goal goal : dirty.values()) {
+            if (tracker.getGoal(goal.getId()) == goal) {
+                snapshots.put(goal.getId(), build(goal));
+            }
+        }
+        dirty.clear();
+    }
+
+    private Snapshot build(Goal goal) {
+        Map<UUID, Long> contributions = goal.getContributions();
+        if (contributions.isEmpty()) {
+            return Snapshot.EMPTY;
+        }
+
+        List<Map.Entry<UUID, Long>> entries = new ArrayList<>(contributions.entrySet());
+        entries.sort(Map.Entry.<UUID, Long>comparingByValue().reversed());
+        int size = entries.size();
+        String[] names = new String[size];
+        String[] amounts = new String[size];
+        String[] ranks = new String[size];
+        Map<UUID, Integer> positions = new HashMap<>(size * 2);
+        int rank = 0;
+        for (int i = 0; i < size; i++) {
+            Map.Entry<UUID, Long> entry = entries.get(i);
+            // Equal amounts share a rank
+            if (i == 0 || !entry.getValue().equals(entries.get(i - 1).getValue())) {
+                rank = i + 1;
+            }
+            names[i] = resolveName(entry.getKey());
+            amounts[i] = String.valueOf(entry.getValue());
+            ranks[i] = String.valueOf(rank);
+            positions.put(entry.getKey(), i);
+        }
+        return new Snapshot(names, amounts, ranks, positions);
+    }
+
+    private String resolveName(UUID playerId) {
+        String name = tracker.getContributorName(playerId);
+        if (name == null) {
+            // Contributions recorded before names were kept; look the player up once
+            name = Bukkit.getOfflinePlayer(playerId).getName();
+            if (name == null) {
+                return playerId.toString().substring(0, 8);
+            }
+            tracker.recordContributorName(playerId, name);
+        }
+        return name;
+    }
+
+    @Override
+    public void onProgressUpdated(Goal goal, long previousProgress, long amountAdded) {
+        markDirty(goal);
+    }
+
+    @Override
+    public void onGoalCompleted(Goal goal) {
+        markDirty(goal);
+    }
+
+    @Override
+    public void onGoalCreated(Goal goal) {
+        snapshots.put(goal.getId(), Snapshot.EMPTY);
+    }
+
+    @Override
+    public void onGoalDeleted(Goal goal) {
+        snapshots.remove(goal.getId());
+        dirty.remove(goal.getId());
+    }
+
+    @Override
+    public void onGoalUpdated(Goal goal) {
+        markDirty(goal);
+    }
+
+    /**
+     * Immutable ranking of one goal with every value preformatted
+     */
+    public static final class Snapshot {
+        private static final Snapshot EMPTY = new Snapshot(new String[0], new String[0], new String[0],
+            Collections.emptyMap());
+
+        private final String[] names;
+        private final String[] amounts;
+        private final String[] ranks;
+        private final Map<UUID, Integer> positions;
+
+        private Snapshot(String[] names, String[] amounts, String[] ranks, Map<UUID, Integer> positions) {
+            this.names = names;
+            this.amounts = amounts;
+            this.ranks = ranks;
+            this.positions = positions;
+        }
+
+        public int size() {
+            return names.length;
+        }
+
+        /**
+         * Name at a 1-based leaderboard position, or null past the end
+         */
+        public String getName(int position) {
+            return position >= 1 && position <= names.length ? names[position - 1] : null;
+        }
+
+        /**
+         * Amount at a 1-based leaderboard position, or null past the end
+         */
+        public String getAmount(int position) {
+            return position >= 1 && position <= amounts.length ? amounts[position - 1] : null;
+        }
+
+        /**
+         * A player's contribution, or null if they have none
+         */
+        public String getAmount(UUID playerId) {
+            Integer position = positions.get(playerId);
+            return position == null ? null : amounts[position];
+        }
+
+        /**
+         * A player's rank, or null if they have not contributed
+         */
+        public String getRank(UUID playerId) {
+            Integer position = positions.get(playerId);
+            return position == null ? null : ranks[position];
+        }
+    }
+}
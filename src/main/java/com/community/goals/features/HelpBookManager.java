@@ -103,7 +103,8 @@ public class HelpBookManager implements Listener, CommandExecutor {
                 + "&7Step-by-step:\n"
                 + "&81) /goal list\n"
                 + "&82) /goal view <id>\n"
-                + "&83) /goal turnin <id> <amount> [item]\n\n"
+                + "&83) /goal turnin <id> <amount> [item]\n"
+                + "&8Or /goal depositall for every goal\n\n"
                 + "&7If a Goals NPC is available, you can\n"
                 + "&7right-click it to open goals.\n\n"
                 + "&8Need another copy?\n"
@@ -1,6 +1,7 @@
 package com.community.goals.features;
 
 import com.community.goals.Goal;
+import com.community.goals.TextFormat;
 import org.bukkit.Bukkit;
 import org.bukkit.boss.BarColor;
 import org.bukkit.boss.BarStyle;
@@ -55,9 +56,9 @@ public class ProgressAnnouncementManager {
             double progress = Math.min(1.0, goal.getProgressPercentage() / 100.0);
             bossBar.setProgress(progress);
             
-            String title = String.format("§6%s §7[%.1f%%]", 
-                goal.getName(), goal.getProgressPercentage());
-            bossBar.setTitle(title);
+            StringBuilder title = TextFormat.line().append("§6").append(goal.getName()).append(" §7[");
+            TextFormat.appendFixed(title, goal.getProgressPercentage(), 1).append("%]");
+            bossBar.setTitle(title.toString());
             bossBar.setColor(getColorForProgress(goal.getProgressPercentage()));
         }
     }
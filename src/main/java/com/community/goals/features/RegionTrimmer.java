@@ -0,0 +1,443 @@
+package com.community.goals.features;
+
+import com.community.goals.Border;
+import com.community.goals.Goal;
+import com.community.goals.logic.GoalProgressTracker;
+import com.community.goals.persistence.ConfigManager;
+import com.community.goals.persistence.PersistenceManager;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Finds region files that lie entirely outside a world's border and removes
+ * them while the world is offline. The area kept is the border's target size
+ * grown by every reward still to be earned in that world, plus a margin, so
+ * regions a planned expansion will open are never touched.
+ *
+ * Scans run on a background thread. Archiving or deleting is written to a
+ * plan file and carried out on the next startup, before any world is loaded;
+ * until then the plan is re-checked whenever goals or borders change, and
+ * once more against the saved border and goals right before it runs.
+ */
+public class RegionTrimmer implements GoalProgressTracker.ProgressListener, BorderExpansionManager.BorderListener {
+    private static final String PLAN_FILE = "region-trim.yml";
+    private static final String ARCHIVE_FOLDER = "trimmed-regions";
+    private static final String[] REGION_FOLDERS = {"region", "entities", "poi"};
+    private static final int REGION_BLOCKS = 512;
+
+    private final JavaPlugin plugin;
+    private final GoalProgressTracker tracker;
+    private final BorderManagerRegistry borderRegistry;
+    private final Path planPath;
+    private final Logger logger;
+    private final Map<String, Plan> plans;
+
+    public RegionTrimmer(JavaPlugin plugin, GoalProgressTracker tracker, BorderManagerRegistry borderRegistry,
+                         String dataFolderPath) {
+        this.plugin = plugin;
+        this.tracker = tracker;
+        this.borderRegistry = borderRegistry;
+        this.planPath = Paths.get(dataFolderPath).resolve(PLAN_FILE);
+        this.logger = plugin.getLogger();
+        this.plans = readPlans(planPath, logger);
+        revalidate();
+    }
+
+    /**
+     * List the region files of a world that lie entirely outside its border
+     * and planned expansions plus {@code marginBlocks}. The result is passed
+     * to {@code callback} on the main thread; null if the world is not loaded
+     * or has no border.
+     */
+    public void scan(String worldName, int marginBlocks, Consumer<ScanResult> callback) {
+        BorderExpansionManager manager = borderRegistry.getManager(worldName);
+        World world = manager == null ? null : Bukkit.getWorld(manager.getBorderConfig().getWorldName());
+        if (world == null) {
+            callback.accept(null);
+            return;
+        }
+
+        KeepArea keep = keepArea(manager.getBorderConfig(), marginBlocks);
+        Path dimensionFolder = dimensionFolder(world);
+        String canonicalWorld = world.getName();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            List<String> files = new ArrayList<>();
+            long bytes = 0;
+            for (String folder : REGION_FOLDERS) {
+                File[] regions = dimensionFolder.resolve(folder).toFile().listFiles();
+                if (regions == null) {
+                    continue;
+                }
+                for (File region : regions) {
+                    int[] coords = parseRegion(region.getName());
+                    if (coords != null && !keep.contains(coords[0], coords[1])) {
+                        files.add(folder + "/" + region.getName());
+                        bytes += region.length();
+                    }
+                }
+            }
+            Collections.sort(files);
+            ScanResult result = new ScanResult(canonicalWorld, dimensionFolder, keep, files, bytes);
+            Bukkit.getScheduler().runTask(plugin, () -> callback.accept(result));
+        });
+    }
+
+    /**
+     * Plan to archive (or delete) the files of a scan on the next startup
+     */
+    public void schedule(ScanResult result, boolean delete) {
+        plans.put(result.worldName, new Plan(result.worldName, result.dimensionFolder.toString(), delete,
+            result.keep, new ArrayList<>(result.files)));
+        revalidate();
+        writePlans();
+    }
+
+    /**
+     * Drop a world's pending plan; returns false if there was none
+     */
+    public boolean cancel(String worldName) {
+        if (plans.remove(worldName) == null) {
+            return false;
+        }
+        writePlans();
+        return true;
+    }
+
+    public Plan getPlan(String worldName) {
+        return plans.get(worldName);
+    }
+
+    /**
+     * Area of a world that must be kept: the border after every expansion
+     * still to be earned there, plus the margin
+     */
+    private KeepArea keepArea(Border border, int marginBlocks) {
+        return keepArea(border, tracker.getGoalsForWorld(border.getWorldName()), marginBlocks);
+    }
+
+    private static KeepArea keepArea(Border border, Collection<Goal> goals, int marginBlocks) {
+        double plannedSize = border.getSize();
+        for (Goal goal : goals) {
+            if (!goal.isCompleted() && border.getWorldName().equalsIgnoreCase(goal.getWorldName())) {
+                plannedSize += goal.getRewardExpansion() > 0 ? goal.getRewardExpansion() : border.getExpansionAmount();
+            }
+        }
+        double half = plannedSize / 2 + Math.max(0, marginBlocks);
+        return new KeepArea(
+            Math.floorDiv((long) Math.floor(border.getCenterX() - half), REGION_BLOCKS),
+            Math.floorDiv((long) Math.ceil(border.getCenterX() + half), REGION_BLOCKS),
+            Math.floorDiv((long) Math.floor(border.getCenterZ() - half), REGION_BLOCKS),
+            Math.floorDiv((long) Math.ceil(border.getCenterZ() + half), REGION_BLOCKS));
+    }
+
+    /**
+     * Widen pending plans to the current keep areas and drop any file that
+     * is now inside one
+     */
+    private void revalidate() {
+        boolean changed = false;
+        for (Plan plan : plans.values()) {
+            BorderExpansionManager manager = borderRegistry.getManager(plan.worldName);
+            if (manager == null) {
+                continue;
+            }
+            KeepArea current = keepArea(manager.getBorderConfig(), 0);
+            KeepArea widened = plan.keep.union(current);
+            if (widened.equals(plan.keep)) {
+                continue;
+            }
+            plan.keep = widened;
+            plan.files.removeIf(file -> {
+                int[] coords = parseRegion(file.substring(file.indexOf('/') + 1));
+                return coords == null || widened.contains(coords[0], coords[1]);
+            });
+            changed = true;
+        }
+        if (changed) {
+            writePlans();
+        }
+    }
+
+    @Override
+    public void onProgressUpdated(Goal goal, long previousProgress, long amountAdded) {
+    }
+
+    @Override
+    public void onGoalCompleted(Goal goal) {
+        revalidate();
+    }
+
+    @Override
+    public void onGoalCreated(Goal goal) {
+        revalidate();
+    }
+
+    @Override
+    public void onGoalDeleted(Goal goal) {
+    }
+
+    @Override
+    public void onGoalUpdated(Goal goal) {
+        revalidate();
+    }
+
+    @Override
+    public void onBorderChanged(Border border) {
+        revalidate();
+    }
+
+    /**
+     * Carry out pending plans. Must run before worlds are loaded, since the
+     * server keeps region files of loaded worlds open. The border and goals
+     * are read back from disk first and any file inside the area they keep is
+     * skipped, in case they changed after the plan was last written.
+     */
+    public static void applyPendingPlans(String dataFolderPath, String configPath, Logger logger) {
+        Path dataFolder = Paths.get(dataFolderPath);
+        Path planPath = dataFolder.resolve(PLAN_FILE);
+        Map<String, Plan> plans = readPlans(planPath, logger);
+        if (plans.isEmpty()) {
+            return;
+        }
+
+        ConfigManager config = new ConfigManager(configPath, logger);
+        String defaultWorld = config.getString("world-borders.default-world",
+            config.getString("world-border.world", "world"));
+        List<Goal> goals = new PersistenceManager(dataFolderPath, logger, defaultWorld).loadGoals();
+        for (Plan plan : plans.values()) {
+            Border saved = BorderManagerRegistry.readSavedBorder(config, plan.worldName);
+            if (saved == null) {
+                logger.warning("Skipping region trim of " + plan.worldName + ": its border is no longer configured.");
+                continue;
+            }
+            KeepArea keep = plan.keep.union(keepArea(saved, goals, 0));
+            Path dimensionFolder = Paths.get(plan.folder);
+            Path archive = dataFolder.resolve(ARCHIVE_FOLDER).resolve(plan.worldName);
+            int done = 0;
+            int kept = 0;
+            for (String file : plan.files) {
+                int[] coords = parseRegion(file.substring(file.indexOf('/') + 1));
+                if (coords == null || keep.contains(coords[0], coords[1])) {
+                    kept++;
+                    continue;
+                }
+                Path source = dimensionFolder.resolve(file);
+                try {
+                    if (!Files.exists(source)) {
+                        continue;
+                    }
+                    if (plan.delete) {
+                        Files.delete(source);
+                    } else {
+                        Path target = archive.resolve(file);
+                        Files.createDirectories(target.getParent());
+                        Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    }
+                    done++;
+                } catch (IOException e) {
+                    logger.warning("Failed to trim region file " + source + ": " + e.getMessage());
+                }
+            }
+            logger.info((plan.delete ? "Deleted " : "Archived ") + done + " region files outside the border of "
+                + plan.worldName + (plan.delete ? "." : " to " + archive + "."));
+            if (kept > 0) {
+                logger.info("Kept " + kept + " planned region files of " + plan.worldName
+                    + " that are inside the saved border.");
+            }
+        }
+        try {
+            Files.deleteIfExists(planPath);
+        } catch (IOException e) {
+            logger.warning("Failed to remove region trim plan: " + e.getMessage());
+        }
+    }
+
+    private static Path dimensionFolder(World world) {
+        Path folder = world.getWorldFolder().toPath();
+        switch (world.getEnvironment()) {
+            case NETHER:
+                return folder.resolve("DIM-1");
+            case THE_END:
+                return folder.resolve("DIM1");
+            default:
+                return folder;
+        }
+    }
+
+    /**
+     * Region coordinates from an {@code r.<x>.<z>.mca} file name, or null
+     */
+    private static int[] parseRegion(String name) {
+        if (!name.startsWith("r.") || !name.endsWith(".mca")) {
+            return null;
+        }
+        String[] parts = name.split("\\.");
+        if (parts.length != 4) {
+            return null;
+        }
+        try {
+            return new int[]{Integer.parseInt(parts[1]), Integer.parseInt(parts[2])};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void writePlans() {
+        if (plans.isEmpty()) {
+            try {
+                Files.deleteIfExists(planPath);
+            } catch (IOException e) {
+                logger.warning("Failed to remove region trim plan: " + e.getMessage());
+            }
+            return;
+        }
+
+        Map<String, Object> worlds = new LinkedHashMap<>();
+        for (Plan plan : plans.values()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("folder", plan.folder);
+            entry.put("mode", plan.delete ? "delete" : "archive");
+            entry.put("keep", Arrays.asList(plan.keep.minX, plan.keep.maxX, plan.keep.minZ, plan.keep.maxZ));
+            entry.put("files", plan.files);
+            worlds.put(plan.worldName, entry);
+        }
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("worlds", worlds);
+        try (Writer writer = Files.newBufferedWriter(planPath)) {
+            new Yaml().dump(root, writer);
+        } catch (IOException e) {
+            logger.warning("Failed to save region trim plan: " + e.getMessage());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Plan> readPlans(Path planPath, Logger logger) {
+        Map<String, Plan> plans = new LinkedHashMap<>();
+        if (!Files.exists(planPath)) {
+            return plans;
+        }
+        try (Reader reader = Files.newBufferedReader(planPath)) {
+            Map<String, Object> root = new Yaml().load(reader);
+            Object rawWorlds = root == null ? null : root.get("worlds");
+            if (!(rawWorlds instanceof Map)) {
+                return plans;
+            }
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) rawWorlds).entrySet()) {
+                if (!(entry.getValue() instanceof Map)) {
+                    continue;
+                }
+                Map<String, Object> data = (Map<String, Object>) entry.getValue();
+                List<Object> keep = data.get("keep") instanceof List ? (List<Object>) data.get("keep") : null;
+                if (keep == null || keep.size() != 4 || !(data.get("files") instanceof List)) {
+                    logger.warning("Skipping malformed region trim plan for " + entry.getKey());
+                    continue;
+                }
+                List<String> files = new ArrayList<>();
+                for (Object file : (List<Object>) data.get("files")) {
+                    files.add(String.valueOf(file));
+                }
+                plans.put(entry.getKey(), new Plan(entry.getKey(), String.valueOf(data.get("folder")),
+                    "delete".equals(data.get("mode")),
+                    new KeepArea(toLong(keep.get(0)), toLong(keep.get(1)), toLong(keep.get(2)), toLong(keep.get(3))),
+                    files));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Failed to read region trim plan: " + e.getMessage());
+        }
+        return plans;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : Long.parseLong(String.valueOf(value));
+    }
+
+    /**
+     * Region-coordinate rectangle that must not be trimmed
+     */
+    public static final class KeepArea {
+        public final long minX;
+        public final long maxX;
+        public final long minZ;
+        public final long maxZ;
+
+        private KeepArea(long minX, long maxX, long minZ, long maxZ) {
+            this.minX = minX;
+            this.maxX = maxX;
+            this.minZ = minZ;
+            this.maxZ = maxZ;
+        }
+
+        private boolean contains(long regionX, long regionZ) {
+            return regionX >= minX && regionX <= maxX && regionZ >= minZ && regionZ <= maxZ;
+        }
+
+        private KeepArea union(KeepArea other) {
+            return new KeepArea(Math.min(minX, other.minX), Math.max(maxX, other.maxX),
+                Math.min(minZ, other.minZ), Math.max(maxZ, other.maxZ));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof KeepArea)) {
+                return false;
+            }
+            KeepArea other = (KeepArea) o;
+            return minX == other.minX && maxX == other.maxX && minZ == other.minZ && maxZ == other.maxZ;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(minX, maxX, minZ, maxZ);
+        }
+    }
+
+    /**
+     * Region files of one world found outside its keep area
+     */
+    public static final class ScanResult {
+        public final String worldName;
+        public final Path dimensionFolder;
+        public final KeepArea keep;
+        public final List<String> files;
+        public final long bytes;
+
+        private ScanResult(String worldName, Path dimensionFolder, KeepArea keep, List<String> files, long bytes) {
+            this.worldName = worldName;
+            this.dimensionFolder = dimensionFolder;
+            this.keep = keep;
+            this.files = Collections.unmodifiableList(files);
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Files of one world to archive or delete on the next startup
+     */
+    public static final class Plan {
+        public final String worldName;
+        private final String folder;
+        public final boolean delete;
+        private KeepArea keep;
+        private final List<String> files;
+
+        private Plan(String worldName, String folder, boolean delete, KeepArea keep, List<String> files) {
+            this.worldName = worldName;
+            this.folder = folder;
+            this.delete = delete;
+            this.keep = keep;
+            this.files = files;
+        }
+
+        public int getFileCount() {
+            return files.size();
+        }
+    }
+}
@@ -2,9 +2,16 @@ package com.community.goals.gui;
 
 import com.community.goals.Goal;
 import com.community.goals.State;
+import com.community.goals.TextFormat;
+import com.community.goals.logic.ActiveGoalIndex;
+import com.community.goals.logic.DepositRouter;
 import com.community.goals.logic.GoalProgressTracker;
-import com.community.goals.logic.GoalQueueManager;
+import com.community.goals.logic.InventoryTransaction;
+import com.community.goals.logic.MaterialSelection;
 import com.community.goals.logic.TurnInHandler;
+import com.community.goals.logic.TurnInJournal;
+import com.community.goals.logic.TurnInRateLimiter;
+import com.community.goals.logic.TurnInTally;
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.Sound;
@@ -14,30 +21,67 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
-import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.inventory.InventoryDragEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.ItemFlag;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.*;
 
 public class GoalGuiManager implements Listener {
     private static final String GOALS_TITLE = "Community Goals";
     private static final String TURN_IN_TITLE_PREFIX = "Turn In: ";
-    private static final int[] GOAL_SLOTS = new int[] {11, 13, 15};
+    private static final int MENU_SIZE = 54;
+    private static final int PAGE_SIZE = 45;
+    private static final int PREVIOUS_PAGE_SLOT = 45;
+    private static final int FILTER_SLOT = 47;
+    private static final int DEPOSIT_ALL_SLOT = 49;
+    private static final int PAGE_INFO_SLOT = 51;
+    private static final int NEXT_PAGE_SLOT = 53;
+    // Turn-in chest: three rows of storage and a locked row holding the preview
+    private static final int TURN_IN_STORAGE = 27;
+    private static final int TURN_IN_SIZE = 36;
+    private static final int PREVIEW_SLOT = 31;
 
     private final GoalProgressTracker tracker;
     private final TurnInHandler turnInHandler;
-    private final GoalQueueManager queueManager;
-    private final Map<UUID, GoalsMenuHolder> openGoalsMenus;
+    private final ActiveGoalIndex goalIndex;
+    private final DepositRouter depositRouter;
+    private final TurnInRateLimiter rateLimiter;
+    private final Map<String, Map<UUID, GoalsMenuHolder>> openGoalsMenus;
+    private final Map<String, CachedIcon> iconCache;
+    private final Map<String, ContributorViews> contributorViews;
+    private final Map<GoalFilter, ItemStack> filterItems;
+    private final JavaPlugin plugin;
+    private final long minRefreshIntervalMillis;
+    private final Map<String, String> dirtyWorlds;
+    private final Map<String, Goal> dirtyGoals;
+    private final Set<GoalsMenuHolder> dirtyMenus;
+    private boolean drainScheduled;
+    private ItemStack depositAllItem;
+    private ItemStack previousPageItem;
+    private ItemStack nextPageItem;
 
-    public GoalGuiManager(GoalProgressTracker tracker, TurnInHandler turnInHandler, GoalQueueManager queueManager) {
+    public GoalGuiManager(JavaPlugin plugin, GoalProgressTracker tracker, TurnInHandler turnInHandler,
+                          ActiveGoalIndex goalIndex, DepositRouter depositRouter, TurnInRateLimiter rateLimiter,
+                          int maxRefreshesPerSecond) {
+        this.plugin = plugin;
+        this.minRefreshIntervalMillis = maxRefreshesPerSecond > 0 ? 1000L / maxRefreshesPerSecond : 0;
+        this.dirtyWorlds = new LinkedHashMap<>();
+        this.dirtyGoals = new LinkedHashMap<>();
+        this.dirtyMenus = new LinkedHashSet<>();
         this.tracker = tracker;
         this.turnInHandler = turnInHandler;
-        this.queueManager = queueManager;
+        this.goalIndex = goalIndex;
+        this.depositRouter = depositRouter;
+        this.rateLimiter = rateLimiter;
         this.openGoalsMenus = new HashMap<>();
+        this.iconCache = new HashMap<>();
+        this.contributorViews = new HashMap<>();
+        this.filterItems = new EnumMap<>(GoalFilter.class);
     }
 
     public void openGoalsMenu(Player player) {
@@ -45,60 +89,196 @@ public class GoalGuiManager implements Listener {
     }
 
     public void openGoalsMenu(Player player, String worldName) {
-        List<Goal> goals = getDisplayGoals(worldName);
-        GoalsMenuHolder holder = new GoalsMenuHolder(worldName);
-        Inventory inventory = Bukkit.createInventory(holder, 27, GOALS_TITLE);
+        GoalsMenuHolder holder = new GoalsMenuHolder(worldName, player.getUniqueId());
+        Inventory inventory = Bukkit.createInventory(holder, MENU_SIZE, GOALS_TITLE);
         holder.setInventory(inventory);
+        renderPage(holder);
+        inventory.setItem(DEPOSIT_ALL_SLOT, getDepositAllItem());
 
-        for (int i = 0; i < GOAL_SLOTS.length; i++) {
-            if (i >= goals.size()) {
-                continue;
-            }
-            Goal goal = goals.get(i);
-            boolean locked = goal.getState() != State.ACTIVE;
-            ItemStack item = buildGoalItem(goal, locked);
-            inventory.setItem(GOAL_SLOTS[i], item);
-            holder.setGoalForSlot(GOAL_SLOTS[i], goal.getId());
+        player.openInventory(inventory);
+        openGoalsMenus.computeIfAbsent(worldKey(worldName), key -> new HashMap<>()).put(player.getUniqueId(), holder);
+    }
+
+    /**
+     * Mark a world's menus for a full re-evaluation of which goals are shown,
+     * for goals being created, deleted, locked or unlocked. Applied on the next tick.
+     */
+    public void requestWorldRefresh(String worldName) {
+        dirtyWorlds.put(worldKey(worldName), worldName);
+        scheduleDrain(1);
+    }
+
+    /**
+     * Mark one goal's icon as stale in the menus that show it. Applied on the next tick.
+     */
+    public void requestGoalRefresh(Goal goal) {
+        ContributorViews views = contributorViews.get(worldKey(goal.getWorldName()));
+        if (views != null) {
+            // Progress may come with a first contribution, which changes the "mine" lists
+            views.forget();
         }
+        dirtyGoals.put(goal.getId(), goal);
+        scheduleDrain(1);
+    }
 
-        player.openInventory(inventory);
-        openGoalsMenus.put(player.getUniqueId(), holder);
+    private void scheduleDrain(long delayTicks) {
+        if (drainScheduled) {
+            return;
+        }
+        drainScheduled = true;
+        if (delayTicks <= 1) {
+            Bukkit.getScheduler().runTask(plugin, this::drainRefreshes);
+        } else {
+            Bukkit.getScheduler().runTaskLater(plugin, this::drainRefreshes, delayTicks);
+        }
     }
 
-    public void refreshOpenGoalsMenus() {
-        for (Map.Entry<UUID, GoalsMenuHolder> entry : new ArrayList<>(openGoalsMenus.entrySet())) {
-            Player player = Bukkit.getPlayer(entry.getKey());
-            GoalsMenuHolder holder = entry.getValue();
-            if (player == null || !player.isOnline()) {
-                openGoalsMenus.remove(entry.getKey());
+    /**
+     * Turn the dirty goals and worlds collected since the last run into per-menu
+     * dirty flags, then update every menu that is not over its refresh rate.
+     * Throttled menus stay dirty and are retried once their interval has passed.
+     */
+    private void drainRefreshes() {
+        drainScheduled = false;
+
+        for (String worldName : dirtyWorlds.values()) {
+            Map<UUID, GoalsMenuHolder> menus = getLiveMenus(worldName);
+            if (menus == null) {
                 continue;
             }
-            Inventory inventory = holder.getInventory();
-            if (inventory == null) {
-                openGoalsMenus.remove(entry.getKey());
+            for (GoalsMenuHolder holder : menus.values()) {
+                holder.markAllDirty();
+                dirtyMenus.add(holder);
+            }
+        }
+        for (Goal goal : dirtyGoals.values()) {
+            Map<UUID, GoalsMenuHolder> menus = getLiveMenus(goal.getWorldName());
+            if (menus == null) {
                 continue;
             }
-            populateGoalsMenu(inventory, holder);
+            for (GoalsMenuHolder holder : menus.values()) {
+                int slot = holder.getSlotForGoal(goal.getId());
+                if (slot >= 0) {
+                    holder.markSlotDirty(slot);
+                    dirtyMenus.add(holder);
+                }
+            }
+        }
+        dirtyWorlds.clear();
+        dirtyGoals.clear();
+
+        long now = System.currentTimeMillis();
+        long nextDue = Long.MAX_VALUE;
+        Iterator<GoalsMenuHolder> iterator = dirtyMenus.iterator();
+        while (iterator.hasNext()) {
+            GoalsMenuHolder holder = iterator.next();
+            if (holder.getInventory() == null || holder.getInventory().getViewers().isEmpty()) {
+                iterator.remove();
+                continue;
+            }
+            long due = holder.getLastRefresh() + minRefreshIntervalMillis;
+            if (due > now) {
+                nextDue = Math.min(nextDue, due);
+                continue;
+            }
+            flushMenu(holder);
+            holder.setLastRefresh(now);
+            iterator.remove();
+        }
+
+        if (!dirtyMenus.isEmpty()) {
+            scheduleDrain(Math.max(1, (nextDue - now + 49) / 50));
         }
     }
 
-    private void populateGoalsMenu(Inventory inventory, GoalsMenuHolder holder) {
-        inventory.clear();
-        holder.clearSlots();
+    private void flushMenu(GoalsMenuHolder holder) {
+        if (holder.isAllDirty()) {
+            renderPage(holder);
+        } else {
+            for (int slot = 0; slot < PAGE_SIZE; slot++) {
+                if (!holder.isSlotDirty(slot)) {
+                    continue;
+                }
+                Goal goal = tracker.getGoal(holder.getGoalForSlot(slot));
+                if (goal != null) {
+                    holder.show(slot, getGoalIcon(goal, goal.getState() != State.ACTIVE));
+                }
+            }
+        }
+        holder.clearDirty();
+    }
 
-        List<Goal> goals = getDisplayGoals(holder.getWorldName());
-        for (int i = 0; i < GOAL_SLOTS.length; i++) {
-            if (i >= goals.size()) {
+    /**
+     * Open menus of a world with closed or offline viewers pruned, or null if there are none
+     */
+    private Map<UUID, GoalsMenuHolder> getLiveMenus(String worldName) {
+        String key = worldKey(worldName);
+        Map<UUID, GoalsMenuHolder> menus = openGoalsMenus.get(key);
+        if (menus == null) {
+            return null;
+        }
+        menus.entrySet().removeIf(entry -> {
+            Player player = Bukkit.getPlayer(entry.getKey());
+            return player == null || !player.isOnline() || entry.getValue().getInventory() == null;
+        });
+        if (menus.isEmpty()) {
+            openGoalsMenus.remove(key);
+            return null;
+        }
+        return menus;
+    }
+
+    /**
+     * Render the holder's current page. Only the goals on that page are looked at,
+     * so opening or paging costs one page of icons however many goals the world has.
+     */
+    private void renderPage(GoalsMenuHolder holder) {
+        List<Goal> goals = getFilteredGoals(holder);
+        int pages = Math.max(1, (goals.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+        int page = Math.max(0, Math.min(holder.getPage(), pages - 1));
+        holder.setPage(page);
+
+        int from = page * PAGE_SIZE;
+        applyGoals(holder, goals.subList(from, Math.min(goals.size(), from + PAGE_SIZE)));
+        holder.show(PREVIOUS_PAGE_SLOT, page > 0 ? getPreviousPageItem() : null);
+        holder.show(NEXT_PAGE_SLOT, page < pages - 1 ? getNextPageItem() : null);
+        holder.show(FILTER_SLOT, getFilterItem(holder.getFilter()));
+        holder.show(PAGE_INFO_SLOT, getPageInfoItem(holder, page, pages, goals.size()));
+    }
+
+    /**
+     * Put one page of goals into the goal slots, writing only slots whose icon changed
+     */
+    private void applyGoals(GoalsMenuHolder holder, List<Goal> goals) {
+        for (int slot = 0; slot < PAGE_SIZE; slot++) {
+            if (slot >= goals.size()) {
+                holder.setGoalForSlot(slot, null);
+                holder.show(slot, null);
                 continue;
             }
-            Goal goal = goals.get(i);
-            boolean locked = goal.getState() != State.ACTIVE;
-            ItemStack item = buildGoalItem(goal, locked);
-            inventory.setItem(GOAL_SLOTS[i], item);
-            holder.setGoalForSlot(GOAL_SLOTS[i], goal.getId());
+            Goal goal = goals.get(slot);
+            holder.setGoalForSlot(slot, goal.getId());
+            holder.show(slot, getGoalIcon(goal, goal.getState() != State.ACTIVE));
         }
     }
 
+    private void changePage(Player player, GoalsMenuHolder holder, int delta) {
+        holder.setPage(holder.getPage() + delta);
+        renderPage(holder);
+        player.playSound(player.getLocation(), Sound.UI_BUTTON_CLICK, 0.4f, 1.0f);
+    }
+
+    private void cycleFilter(Player player, GoalsMenuHolder holder) {
+        holder.setFilter(holder.getFilter().next());
+        holder.setPage(0);
+        renderPage(holder);
+        player.playSound(player.getLocation(), Sound.UI_BUTTON_CLICK, 0.4f, 1.2f);
+    }
+
+    private static String worldKey(String worldName) {
+        return worldName == null ? "" : worldName.toLowerCase(Locale.ROOT);
+    }
+
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         if (!(event.getWhoClicked() instanceof Player)) {
@@ -112,8 +292,26 @@ public class GoalGuiManager implements Listener {
         if (inventory.getHolder() instanceof GoalsMenuHolder) {
             event.setCancelled(true);
             GoalsMenuHolder holder = (GoalsMenuHolder) inventory.getHolder();
-            String goalId = holder.getGoalForSlot(event.getRawSlot());
-            if (goalId == null) {
+            int rawSlot = event.getRawSlot();
+            if ((rawSlot == PREVIOUS_PAGE_SLOT || rawSlot == NEXT_PAGE_SLOT) && holder.isShowing(rawSlot)) {
+                changePage((Player) event.getWhoClicked(), holder, rawSlot == NEXT_PAGE_SLOT ? 1 : -1);
+                return;
+            }
+            if (rawSlot == FILTER_SLOT) {
+                cycleFilter((Player) event.getWhoClicked(), holder);
+                return;
+            }
+            String goalId = holder.getGoalForSlot(rawSlot);
+            boolean depositAll = rawSlot == DEPOSIT_ALL_SLOT;
+            if (goalId == null && !depositAll) {
+                return;
+            }
+            // Throttle before building menus or touching inventories
+            if (!rateLimiter.tryAcquire((Player) event.getWhoClicked())) {
+                return;
+            }
+            if (depositAll) {
+                handleDepositAll((Player) event.getWhoClicked(), holder);
                 return;
             }
             Goal goal = tracker.getGoal(goalId);
@@ -133,8 +331,59 @@ public class GoalGuiManager implements Listener {
         }
 
         if (inventory.getHolder() instanceof TurnInHolder) {
-            if (event.getClick() == ClickType.DOUBLE_CLICK) {
+            TurnInHolder holder = (TurnInHolder) inventory.getHolder();
+            int rawSlot = event.getRawSlot();
+            if (event.getClick() == ClickType.DOUBLE_CLICK
+                || (rawSlot >= TURN_IN_STORAGE && rawSlot < inventory.getSize())) {
                 event.setCancelled(true);
+                return;
+            }
+            if (rawSlot >= 0 && rawSlot < TURN_IN_STORAGE) {
+                holder.markSlotChanged(rawSlot);
+            } else if (event.isShiftClick()) {
+                // Shift-clicked stacks land in slots we can't know before the click resolves
+                holder.markAllChanged();
+            } else {
+                return;
+            }
+            schedulePreviewUpdate((Player) event.getWhoClicked(), holder);
+        }
+    }
+
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        Inventory inventory = event.getInventory();
+        if (inventory == null || inventory.getHolder() == null) {
+            return;
+        }
+
+        if (inventory.getHolder() instanceof GoalsMenuHolder) {
+            for (int rawSlot : event.getRawSlots()) {
+                if (rawSlot < inventory.getSize()) {
+                    event.setCancelled(true);
+                    return;
+                }
+            }
+            return;
+        }
+
+        if (inventory.getHolder() instanceof TurnInHolder && event.getWhoClicked() instanceof Player) {
+            TurnInHolder holder = (TurnInHolder) inventory.getHolder();
+            for (int rawSlot : event.getRawSlots()) {
+                if (rawSlot >= TURN_IN_STORAGE && rawSlot < inventory.getSize()) {
+                    event.setCancelled(true);
+                    return;
+                }
+            }
+            boolean touchesChest = false;
+            for (int rawSlot : event.getRawSlots()) {
+                if (rawSlot < TURN_IN_STORAGE) {
+                    holder.markSlotChanged(rawSlot);
+                    touchesChest = true;
+                }
+            }
+            if (touchesChest) {
+                schedulePreviewUpdate((Player) event.getWhoClicked(), holder);
             }
         }
     }
@@ -147,7 +396,14 @@ public class GoalGuiManager implements Listener {
         }
 
         if (inventory.getHolder() instanceof GoalsMenuHolder) {
-            openGoalsMenus.remove(event.getPlayer().getUniqueId());
+            GoalsMenuHolder holder = (GoalsMenuHolder) inventory.getHolder();
+            Map<UUID, GoalsMenuHolder> menus = openGoalsMenus.get(worldKey(holder.getWorldName()));
+            if (menus != null) {
+                menus.remove(event.getPlayer().getUniqueId(), holder);
+                if (menus.isEmpty()) {
+                    openGoalsMenus.remove(worldKey(holder.getWorldName()));
+                }
+            }
             return;
         }
 
@@ -161,13 +417,117 @@ public class GoalGuiManager implements Listener {
     }
 
     private void openTurnInMenu(Player player, Goal goal) {
-        TurnInHolder holder = new TurnInHolder(goal.getId());
-        Inventory inventory = Bukkit.createInventory(holder, InventoryType.CHEST, TURN_IN_TITLE_PREFIX + goal.getName());
+        TurnInHolder holder = new TurnInHolder(goal.getId(), new TurnInTally(goal.getItemMatcher(), TURN_IN_STORAGE));
+        Inventory inventory = Bukkit.createInventory(holder, TURN_IN_SIZE, TURN_IN_TITLE_PREFIX + goal.getName());
         holder.setInventory(inventory);
+        // Fill the control row so shift-clicked items can only land in storage
+        ItemStack filler = createFiller();
+        for (int slot = TURN_IN_STORAGE; slot < TURN_IN_SIZE; slot++) {
+            inventory.setItem(slot, filler);
+        }
+        renderPreview(player, holder, goal);
         player.openInventory(inventory);
     }
 
+    /**
+     * Clicks are applied after the event returns, so the touched slots are
+     * re-read on the next tick. Several clicks in one tick share one update.
+     */
+    private void schedulePreviewUpdate(Player player, TurnInHolder holder) {
+        if (holder.isUpdateScheduled()) {
+            return;
+        }
+        holder.setUpdateScheduled(true);
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            holder.setUpdateScheduled(false);
+            if (holder.isClosed()) {
+                return;
+            }
+            updateTally(holder);
+            Goal goal = tracker.getGoal(holder.getGoalId());
+            if (goal != null) {
+                renderPreview(player, holder, goal);
+            }
+        });
+    }
+
+    /**
+     * Fold the changed chest slots into the running tally
+     */
+    private void updateTally(TurnInHolder holder) {
+        Inventory inventory = holder.getInventory();
+        for (int slot = 0; slot < TURN_IN_STORAGE; slot++) {
+            if (holder.isSlotChanged(slot)) {
+                holder.getTally().update(slot, inventory.getItem(slot));
+            }
+        }
+        holder.clearChanged();
+    }
+
+    /**
+     * Price the tally against the goal's current needs and the player's allowance.
+     * This works on per-material totals, so it never walks the chest.
+     */
+    private MaterialSelection previewSelection(Player player, TurnInHolder holder, Goal goal) {
+        if (holder.getTally().getMatcher() != goal.getItemMatcher()) {
+            // The goal's rules were edited while the chest was open; recount under the new ones
+            holder.setTally(new TurnInTally(goal.getItemMatcher(), TURN_IN_STORAGE));
+            holder.markAllChanged();
+            updateTally(holder);
+        }
+        MaterialSelection selection = new MaterialSelection(goal, Long.MAX_VALUE, player.getUniqueId());
+        long[] offered = holder.getTally().getOffered();
+        for (int slot = 0; slot < offered.length; slot++) {
+            selection.offerCount(slot, offered[slot]);
+        }
+        return selection;
+    }
+
+    private void renderPreview(Player player, TurnInHolder holder, Goal goal) {
+        MaterialSelection selection = previewSelection(player, holder, goal);
+        long points = selection.getPoints();
+        long remaining = Math.max(0, goal.getTargetProgress() - goal.getCurrentProgress() - points);
+        String key = selection.getTotalItems() + "/" + points + "/" + remaining;
+        if (key.equals(holder.getPreviewKey())) {
+            return;
+        }
+
+        ItemStack item = new ItemStack(Material.PAPER);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName("§6Accepted: §a" + selection.getTotalItems() + " §6/ Remaining: §f" + remaining);
+            List<String> lore = new ArrayList<>();
+            if (selection.getTotalItems() > 0) {
+                lore.add("§7Turning in: §f" + selection.describe());
+            }
+            lore.add("§7Points: §a+" + points);
+            lore.add("§7Goal still needs: §f" + remaining + " points");
+            lore.add("§8Close to turn in; other items are returned");
+            meta.setLore(lore);
+            item.setItemMeta(meta);
+        }
+        holder.setPreviewKey(key);
+        holder.getInventory().setItem(PREVIEW_SLOT, item);
+    }
+
+    private ItemStack createFiller() {
+        ItemStack item = new ItemStack(Material.GRAY_STAINED_GLASS_PANE);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(" ");
+            item.setItemMeta(meta);
+        }
+        return item;
+    }
+
     private void handleTurnInClose(Player player, TurnInHolder holder, Inventory inventory) {
+        // The control row is not the player's; empty it before anything is selected or returned
+        holder.setClosed(true);
+        for (int slot = TURN_IN_STORAGE; slot < inventory.getSize(); slot++) {
+            inventory.setItem(slot, null);
+        }
+        updateTally(holder);
+
         Goal goal = tracker.getGoal(holder.getGoalId());
         if (goal == null || goal.getState() != State.ACTIVE) {
             returnItems(player, inventory.getContents());
@@ -180,84 +540,72 @@ public class GoalGuiManager implements Listener {
             return;
         }
 
-        Material material = resolveMaterialForGoal(goal.getId());
-        ItemStack[] contents = inventory.getContents();
-        if (material == null) {
-            returnItems(player, contents);
+        if (!goal.getItemMatcher().acceptsAnything()) {
+            returnItems(player, inventory.getContents());
             inventory.clear();
             player.sendMessage("§cThis goal doesn't accept any items yet.");
             return;
         }
 
-        int totalAllowed = countMaterial(contents, material);
-        if (totalAllowed <= 0) {
-            returnItems(player, contents);
+        // Nothing in the chest can count: hand it all back without a selection pass
+        if (previewSelection(player, holder, goal).getTotalItems() == 0) {
+            returnItems(player, inventory.getContents());
             inventory.clear();
+            if (!holder.getTally().isEmpty() && goal.getRemainingAllowance(player.getUniqueId()) <= 0) {
+                player.sendMessage("§cYou've reached your contribution limit for this goal.");
+            }
             return;
         }
 
-        long remaining = goal.getTargetProgress() - goal.getCurrentProgress();
-        int acceptedAmount = (int) Math.min(totalAllowed, remaining);
-        if (acceptedAmount <= 0) {
-            returnItems(player, contents);
+        // Only the player's remaining allowance is taken; the rest is handed back below
+        MaterialSelection selection = new MaterialSelection(goal, Long.MAX_VALUE, player.getUniqueId());
+        InventoryTransaction transaction = InventoryTransaction.select(inventory, selection, null,
+            holder.getTally().getSlotMask());
+        if (transaction.isEmpty()) {
+            returnItems(player, inventory.getContents());
             inventory.clear();
-            player.sendMessage("§aThat goal is already completed.");
+            if (goal.getRemainingAllowance(player.getUniqueId()) <= 0) {
+                player.sendMessage("§cYou've reached your contribution limit for this goal.");
+            }
             return;
         }
 
-        TurnInHandler.ValidationResult validation = turnInHandler.validateTurnIn(goal.getId(), acceptedAmount);
+        TurnInHandler.ValidationResult validation = turnInHandler.validateTurnIn(goal.getId(), player.getUniqueId(), selection.getPoints());
         if (!validation.isValid()) {
-            returnItems(player, contents);
+            returnItems(player, inventory.getContents());
             inventory.clear();
             player.sendMessage("§c" + validation.getReason());
             return;
         }
 
-        List<ItemStack> leftovers = removeAcceptedItems(contents, material, acceptedAmount);
-        inventory.clear();
-
-        TurnInHandler.TurnInResult result = turnInHandler.processTurnIn(goal.getId(), acceptedAmount, player.getName());
+        TurnInHandler.TurnInResult result = turnInHandler.processTransaction(
+            holder.getTransactionId(), player.getUniqueId(), player.getName(),
+            Collections.singletonMap(goal.getId(), selection.getItemCounts()), transaction).get(0);
         if (!result.isSuccess()) {
-            returnItems(player, contents);
             player.sendMessage("§c" + result.getMessage());
-            return;
+        } else {
+            player.sendMessage(String.format("§aTurned in %s for %s (+%d points).", selection.describe(),
+                goal.getName(), result.getAmountAdded()));
         }
 
-        returnItems(player, leftovers.toArray(new ItemStack[0]));
-        player.sendMessage(String.format("§aTurned in %d %s for %s.", acceptedAmount,
-            material.name().toLowerCase().replace("_", " "), goal.getName()));
+        // Whatever is left in the chest (rejected, excess or rolled back) goes back to the player
+        returnItems(player, inventory.getContents());
+        inventory.clear();
     }
 
-    private List<ItemStack> removeAcceptedItems(ItemStack[] contents, Material material, int acceptedAmount) {
-        List<ItemStack> leftovers = new ArrayList<>();
-        int remaining = acceptedAmount;
-
-        for (ItemStack item : contents) {
-            if (item == null) {
-                continue;
-            }
-            if (item.getType() != material) {
-                leftovers.add(item.clone());
-                continue;
-            }
-
-            int amount = item.getAmount();
-            if (remaining <= 0) {
-                leftovers.add(item.clone());
-                continue;
-            }
-
-            if (amount <= remaining) {
-                remaining -= amount;
-            } else {
-                ItemStack extra = item.clone();
-                extra.setAmount(amount - remaining);
-                leftovers.add(extra);
-                remaining = 0;
-            }
+    private void handleDepositAll(Player player, GoalsMenuHolder holder) {
+        DepositRouter.DepositResult deposit = depositRouter.depositAll(
+            player.getInventory(), holder.getWorldName(), player.getUniqueId(), player.getName());
+        if (!deposit.isSuccess()) {
+            player.sendMessage("§c" + deposit.getMessage());
+            player.playSound(player.getLocation(), Sound.BLOCK_NOTE_BLOCK_BASS, 0.6f, 0.8f);
+            return;
         }
-
-        return leftovers;
+        for (TurnInHandler.TurnInResult result : deposit.getResults()) {
+            player.sendMessage(String.format("§aTurned in %s (+%d points).",
+                deposit.getSummary(result.getGoalId()), result.getAmountAdded()));
+        }
+        player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 0.6f, 1.2f);
     }
 
     private void returnItems(Player player, ItemStack[] items) {
@@ -279,82 +627,127 @@ public class GoalGuiManager implements Listener {
         }
     }
 
-    private int countMaterial(ItemStack[] contents, Material material) {
-        int total = 0;
-        for (ItemStack item : contents) {
-            if (item != null && item.getType() == material) {
-                total += item.getAmount();
-            }
-        }
-        return total;
-    }
-
-    private Material resolveMaterialForGoal(String goalId) {
-        String id = goalId.toLowerCase(Locale.ROOT);
-        Material direct = Material.matchMaterial(goalId.toUpperCase(Locale.ROOT));
-        if (direct != null) {
-            return direct;
-        }
-
-        if (id.contains("diamond")) return Material.DIAMOND;
-        if (id.contains("iron")) return Material.IRON_INGOT;
-        if (id.contains("gold")) return Material.GOLD_INGOT;
-        if (id.contains("emerald")) return Material.EMERALD;
-        if (id.contains("coal")) return Material.COAL;
-        if (id.contains("wood") || id.contains("log")) return Material.OAK_LOG;
-        if (id.contains("stone")) return Material.STONE;
-        if (id.contains("cobble")) return Material.COBBLESTONE;
-        if (id.contains("wheat")) return Material.WHEAT;
-        if (id.contains("carrot")) return Material.CARROT;
-        if (id.contains("potato")) return Material.POTATO;
-        if (id.contains("beef")) return Material.BEEF;
-        if (id.contains("pork")) return Material.PORKCHOP;
-        if (id.contains("chicken")) return Material.CHICKEN;
-        if (id.contains("fish")) return Material.COD;
-        if (id.contains("leather") || id.contains("hide")) return Material.LEATHER;
-        if (id.contains("netherite")) return Material.NETHERITE_INGOT;
-        if (id.contains("blaze")) return Material.BLAZE_ROD;
-        if (id.contains("wart")) return Material.NETHER_WART;
-        if (id.contains("ghast")) return Material.GHAST_TEAR;
-        if (id.contains("ancient") || id.contains("debris")) return Material.ANCIENT_DEBRIS;
-        if (id.contains("quartz")) return Material.QUARTZ;
-        if (id.contains("magma")) return Material.MAGMA_CREAM;
-
-        return null;
-    }
-
-    private List<Goal> getDisplayGoals(String worldName) {
-        List<Goal> all = new ArrayList<>(tracker.getGoalsForWorld(worldName));
-        all.removeIf(goal -> goal.getState() == State.COMPLETED);
-
-        Map<String, Goal> goalsById = new HashMap<>();
-        for (Goal goal : all) {
-            goalsById.put(goal.getId().toLowerCase(Locale.ROOT), goal);
-        }
-
-        List<Goal> ordered = new ArrayList<>();
-        if (queueManager != null && queueManager.isEnabled()) {
-            List<String> queue = queueManager.getQueue(worldName);
-            if (!queue.isEmpty()) {
-                for (String goalId : queue) {
-                    Goal goal = goalsById.remove(goalId.toLowerCase(Locale.ROOT));
-                    if (goal != null) {
-                        ordered.add(goal);
-                    }
-                }
+    /**
+     * Goals of the holder's world that pass its filter, in display order.
+     * All views come from the shared goal index; only the per-player view is built here.
+     */
+    private List<Goal> getFilteredGoals(GoalsMenuHolder holder) {
+        ActiveGoalIndex.WorldGoals world = goalIndex.getWorld(holder.getWorldName());
+        switch (holder.getFilter()) {
+            case ACTIVE:
+                return world.getUnlocked();
+            case LOCKED:
+                return world.getLocked();
+            case MINE:
+                return getContributorViews(holder.getWorldName(), world).contributedBy(holder.getViewerId());
+            default:
+                return world.getGoals();
+        }
+    }
+
+    private ContributorViews getContributorViews(String worldName, ActiveGoalIndex.WorldGoals world) {
+        ContributorViews views = contributorViews.get(worldKey(worldName));
+        if (views == null || views.world != world) {
+            views = new ContributorViews(world);
+            contributorViews.put(worldKey(worldName), views);
+        }
+        return views;
+    }
+
+    private ItemStack getPreviousPageItem() {
+        if (previousPageItem == null) {
+            previousPageItem = buildControlItem(Material.ARROW, "§ePrevious Page", null);
+        }
+        return previousPageItem;
+    }
+
+    private ItemStack getNextPageItem() {
+        if (nextPageItem == null) {
+            nextPageItem = buildControlItem(Material.ARROW, "§eNext Page", null);
+        }
+        return nextPageItem;
+    }
+
+    private ItemStack getFilterItem(GoalFilter filter) {
+        ItemStack item = filterItems.get(filter);
+        if (item == null) {
+            List<String> lore = new ArrayList<>();
+            for (GoalFilter option : GoalFilter.values()) {
+                lore.add(option == filter ? "§a> " + option.getLabel() : "§7  " + option.getLabel());
             }
+            lore.add("§eClick to change");
+            item = buildControlItem(Material.SPYGLASS, "§6Filter: §f" + filter.getLabel(), lore);
+            filterItems.put(filter, item);
         }
+        return item;
+    }
 
-        if (!goalsById.isEmpty()) {
-            List<Goal> remaining = new ArrayList<>(goalsById.values());
-            remaining.sort(Comparator.comparingLong(Goal::getCreatedAt));
-            ordered.addAll(remaining);
+    /**
+     * Page indicator, rebuilt only when the page, page count or goal count changes
+     */
+    private ItemStack getPageInfoItem(GoalsMenuHolder holder, int page, int pages, int goalCount) {
+        String key = page + "/" + pages + "/" + goalCount;
+        if (!key.equals(holder.getPageInfoKey())) {
+            List<String> lore = Collections.singletonList("§7" + goalCount + (goalCount == 1 ? " goal" : " goals"));
+            holder.setPageInfo(key, buildControlItem(Material.PAPER, "§fPage " + (page + 1) + " / " + pages, lore));
         }
+        return holder.getPageInfo();
+    }
 
-        if (ordered.size() > GOAL_SLOTS.length) {
-            return ordered.subList(0, GOAL_SLOTS.length);
+    private ItemStack buildControlItem(Material material, String name, List<String> lore) {
+        ItemStack item = new ItemStack(material);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName(name);
+            if (lore != null) {
+                meta.setLore(lore);
+            }
+            item.setItemMeta(meta);
+        }
+        return item;
+    }
+
+    private ItemStack getDepositAllItem() {
+        if (depositAllItem == null) {
+            depositAllItem = buildDepositAllItem();
         }
-        return ordered;
+        return depositAllItem;
+    }
+
+    private ItemStack buildDepositAllItem() {
+        ItemStack item = new ItemStack(Material.HOPPER);
+        ItemMeta meta = item.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName("§6Deposit All");
+            List<String> lore = new ArrayList<>();
+            lore.add("§7Turn in everything from your inventory");
+            lore.add("§7that an active goal still needs");
+            lore.add("§eClick to deposit");
+            meta.setLore(lore);
+            item.setItemMeta(meta);
+        }
+        return item;
+    }
+
+    /**
+     * Rendered icon for a goal, rebuilt only when the goal's version or lock state changes.
+     * Inventories copy stacks on setItem, so the cached stack can be shared between menus.
+     */
+    private ItemStack getGoalIcon(Goal goal, boolean locked) {
+        CachedIcon cached = iconCache.get(goal.getId());
+        if (cached != null && cached.goal == goal && cached.version == goal.getVersion() && cached.locked == locked) {
+            return cached.item;
+        }
+        ItemStack item = buildGoalItem(goal, locked);
+        iconCache.put(goal.getId(), new CachedIcon(goal, goal.getVersion(), locked, item));
+        return item;
+    }
+
+    /**
+     * Drop the cached icon of a deleted goal
+     */
+    public void forgetGoal(String goalId) {
+        iconCache.remove(goalId);
     }
 
     private ItemStack buildGoalItem(Goal goal, boolean locked) {
@@ -367,7 +760,8 @@ public class GoalGuiManager implements Listener {
             lore.add("§7" + goal.getDescription());
             lore.add("§7World: §f" + goal.getWorldName());
             lore.add("§7Progress: §f" + goal.getCurrentProgress() + " / " + goal.getTargetProgress());
-            lore.add(String.format("§7Completion: §a%.1f%%", goal.getProgressPercentage()));
+            StringBuilder completion = TextFormat.line().append("§7Completion: §a");
+            lore.add(TextFormat.appendFixed(completion, goal.getProgressPercentage(), 1).append('%').toString());
             if (goal.getRewardExpansion() > 0) {
                 lore.add("§7Reward: §f" + goal.getRewardExpansion() + " blocks");
             }
@@ -384,13 +778,92 @@ public class GoalGuiManager implements Listener {
         return item;
     }
 
+    private static class CachedIcon {
+        private final Goal goal;
+        private final long version;
+        private final boolean locked;
+        private final ItemStack item;
+
+        private CachedIcon(Goal goal, long version, boolean locked, ItemStack item) {
+            this.goal = goal;
+            this.version = version;
+            this.locked = locked;
+            this.item = item;
+        }
+    }
+
+    private enum GoalFilter {
+        ALL("All goals"),
+        ACTIVE("Active"),
+        LOCKED("Locked"),
+        MINE("Contributed to");
+
+        private final String label;
+
+        GoalFilter(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        public GoalFilter next() {
+            GoalFilter[] values = values();
+            return values[(ordinal() + 1) % values.length];
+        }
+    }
+
+    /**
+     * Per-player "contributed to" views of one index snapshot, built on first use
+     */
+    private static class ContributorViews {
+        private final ActiveGoalIndex.WorldGoals world;
+        private final Map<UUID, List<Goal>> byPlayer;
+
+        private ContributorViews(ActiveGoalIndex.WorldGoals world) {
+            this.world = world;
+            this.byPlayer = new HashMap<>();
+        }
+
+        private List<Goal> contributedBy(UUID playerId) {
+            List<Goal> goals = byPlayer.get(playerId);
+            if (goals == null) {
+                goals = new ArrayList<>();
+                for (Goal goal : world.getGoals()) {
+                    if (goal.getContribution(playerId) > 0) {
+                        goals.add(goal);
+                    }
+                }
+                goals = Collections.unmodifiableList(goals);
+                byPlayer.put(playerId, goals);
+            }
+            return goals;
+        }
+
+        private void forget() {
+            byPlayer.clear();
+        }
+    }
+
     private static class GoalsMenuHolder implements InventoryHolder {
-        private final Map<Integer, String> slotToGoalId = new HashMap<>();
+        private final String[] goalIdBySlot = new String[MENU_SIZE];
+        private final ItemStack[] shown = new ItemStack[MENU_SIZE];
+        private final Map<String, Integer> slotByGoal = new HashMap<>();
         private final String worldName;
+        private final UUID viewerId;
         private Inventory inventory;
+        private GoalFilter filter = GoalFilter.ALL;
+        private int page;
+        private String pageInfoKey;
+        private ItemStack pageInfo;
+        private boolean allDirty;
+        private long dirtySlots;
+        private long lastRefresh;
 
-        private GoalsMenuHolder(String worldName) {
+        private GoalsMenuHolder(String worldName, UUID viewerId) {
             this.worldName = worldName;
+            this.viewerId = viewerId;
         }
 
         @Override
@@ -403,28 +876,122 @@ public class GoalGuiManager implements Listener {
         }
 
         public void setGoalForSlot(int slot, String goalId) {
-            slotToGoalId.put(slot, goalId);
+            String previous = goalIdBySlot[slot];
+            if (previous != null) {
+                slotByGoal.remove(previous, slot);
+            }
+            goalIdBySlot[slot] = goalId;
+            if (goalId != null) {
+                slotByGoal.put(goalId, slot);
+            }
         }
 
         public String getGoalForSlot(int slot) {
-            return slotToGoalId.get(slot);
+            return slot >= 0 && slot < goalIdBySlot.length ? goalIdBySlot[slot] : null;
         }
 
-        public void clearSlots() {
-            slotToGoalId.clear();
+        public int getSlotForGoal(String goalId) {
+            Integer slot = slotByGoal.get(goalId);
+            return slot == null ? -1 : slot;
+        }
+
+        /**
+         * Write an icon only if it differs from the one last written to the slot.
+         * Cached icons are shared instances, so a reference check is enough.
+         */
+        public void show(int slot, ItemStack item) {
+            if (shown[slot] == item) {
+                return;
+            }
+            shown[slot] = item;
+            inventory.setItem(slot, item);
+        }
+
+        public boolean isShowing(int slot) {
+            return slot >= 0 && slot < shown.length && shown[slot] != null;
         }
 
         public String getWorldName() {
             return worldName;
         }
+
+        public UUID getViewerId() {
+            return viewerId;
+        }
+
+        public GoalFilter getFilter() {
+            return filter;
+        }
+
+        public void setFilter(GoalFilter filter) {
+            this.filter = filter;
+        }
+
+        public int getPage() {
+            return page;
+        }
+
+        public void setPage(int page) {
+            this.page = page;
+        }
+
+        public String getPageInfoKey() {
+            return pageInfoKey;
+        }
+
+        public ItemStack getPageInfo() {
+            return pageInfo;
+        }
+
+        public void setPageInfo(String key, ItemStack item) {
+            this.pageInfoKey = key;
+            this.pageInfo = item;
+        }
+
+        public void markAllDirty() {
+            allDirty = true;
+        }
+
+        public void markSlotDirty(int slot) {
+            dirtySlots |= 1L << slot;
+        }
+
+        public boolean isAllDirty() {
+            return allDirty;
+        }
+
+        public boolean isSlotDirty(int slot) {
+            return (dirtySlots & (1L << slot)) != 0;
+        }
+
+        public void clearDirty() {
+            allDirty = false;
+            dirtySlots = 0;
+        }
+
+        public long getLastRefresh() {
+            return lastRefresh;
+        }
+
+        public void setLastRefresh(long lastRefresh) {
+            this.lastRefresh = lastRefresh;
+        }
     }
 
     private static class TurnInHolder implements InventoryHolder {
         private final String goalId;
+        private final String transactionId;
+        private TurnInTally tally;
         private Inventory inventory;
+        private long changedSlots;
+        private boolean updateScheduled;
+        private boolean closed;
+        private String previewKey;
 
-        private TurnInHolder(String goalId) {
+        private TurnInHolder(String goalId, TurnInTally tally) {
             this.goalId = goalId;
+            this.transactionId = TurnInJournal.newTransactionId();
+            this.tally = tally;
         }
 
         @Override
@@ -439,5 +1006,60 @@ public class GoalGuiManager implements Listener {
         public String getGoalId() {
             return goalId;
         }
+
+        /**
+         * One id per opened menu, so a repeated close event cannot credit twice
+         */
+        public String getTransactionId() {
+            return transactionId;
+        }
+
+        public TurnInTally getTally() {
+            return tally;
+        }
+
+        public void setTally(TurnInTally tally) {
+            this.tally = tally;
+        }
+
+        public void markSlotChanged(int slot) {
+            changedSlots |= 1L << slot;
+        }
+
+        public void markAllChanged() {
+            changedSlots = -1L;
+        }
+
+        public boolean isSlotChanged(int slot) {
+            return (changedSlots & (1L << slot)) != 0;
+        }
+
+        public void clearChanged() {
+            changedSlots = 0;
+        }
+
+        public boolean isUpdateScheduled() {
+            return updateScheduled;
+        }
+
+        public void setUpdateScheduled(boolean updateScheduled) {
+            this.updateScheduled = updateScheduled;
+        }
+
+        public boolean isClosed() {
+            return closed;
+        }
+
+        public void setClosed(boolean closed) {
+            this.closed = closed;
+        }
+
+        public String getPreviewKey() {
+            return previewKey;
+        }
+
+        public void setPreviewKey(String previewKey) {
+            this.previewKey = previewKey;
+        }
     }
 }
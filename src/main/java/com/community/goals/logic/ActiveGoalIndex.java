@@ -0,0 +1,168 @@
+package com.community.goals.logic;
+
+import com.community.goals.Goal;
+import com.community.goals.State;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The one place that decides which goals a world shows and which of them is
+ * current. Each world's goals are kept as an immutable snapshot in display
+ * order (queue order first, then creation time), rebuilt on the main thread
+ * when a goal of the world is created, deleted, completed or updated, or its
+ * queue changes. Readers on any thread get the latest snapshot without
+ * scanning or sorting.
+ */
+public class ActiveGoalIndex implements GoalProgressTracker.ProgressListener, GoalQueueManager.QueueListener {
+    private final GoalProgressTracker tracker;
+    private final GoalQueueManager queueManager;
+    private final Map<String, WorldGoals> worlds;
+
+    public ActiveGoalIndex(GoalProgressTracker tracker, GoalQueueManager queueManager) {
+        this.tracker = tracker;
+        this.queueManager = queueManager;
+        this.worlds = new ConcurrentHashMap<>();
+        Set<String> worldNames = new HashSet<>();
+        for (Goal goal : tracker.getAllGoals()) {
+            if (worldNames.add(worldKey(goal.getWorldName()))) {
+                rebuild(goal.getWorldName());
+            }
+        }
+    }
+
+    /**
+     * Latest snapshot of a world; worlds without goals get an empty one
+     */
+    public WorldGoals getWorld(String worldName) {
+        WorldGoals snapshot = worlds.get(worldKey(worldName));
+        return snapshot != null ? snapshot : WorldGoals.EMPTY;
+    }
+
+    /**
+     * The goal a world is currently working on, or null
+     */
+    public Goal getCurrentGoal(String worldName) {
+        return getWorld(worldName).getCurrent();
+    }
+
+    private void rebuild(String worldName) {
+        String key = worldKey(worldName);
+        List<Goal> ordered = new ArrayList<>();
+        Map<String, Goal> goalsById = new HashMap<>();
+        for (Goal goal : tracker.getGoalsForWorld(worldName)) {
+            if (goal.getState() != State.COMPLETED) {
+                goalsById.put(goal.getId().toLowerCase(Locale.ROOT), goal);
+            }
+        }
+
+        if (queueManager != null && queueManager.isEnabled()) {
+            for (String goalId : queueManager.getQueue(worldName)) {
+                Goal goal = goalsById.remove(goalId.toLowerCase(Locale.ROOT));
+                if (goal != null) {
+                    ordered.add(goal);
+                }
+            }
+        }
+        if (!goalsById.isEmpty()) {
+            List<Goal> remaining = new ArrayList<>(goalsById.values());
+            remaining.sort(Comparator.comparingLong(Goal::getCreatedAt));
+            ordered.addAll(remaining);
+        }
+
+        if (ordered.isEmpty()) {
+            worlds.remove(key);
+        } else {
+            worlds.put(key, new WorldGoals(ordered));
+        }
+    }
+
+    @Override
+    public void onProgressUpdated(Goal goal, long previousProgress, long amountAdded) {
+        // Progress does not change which goals are shown or their order
+    }
+
+    @Override
+    public void onGoalCompleted(Goal goal) {
+        rebuild(goal.getWorldName());
+    }
+
+    @Override
+    public void onGoalCreated(Goal goal) {
+        rebuild(goal.getWorldName());
+    }
+
+    @Override
+    public void onGoalDeleted(Goal goal) {
+        rebuild(goal.getWorldName());
+    }
+
+    @Override
+    public void onGoalUpdated(Goal goal) {
+        rebuild(goal.getWorldName());
+    }
+
+    @Override
+    public void onQueueChanged(String worldName) {
+        rebuild(worldName);
+    }
+
+    private static String worldKey(String worldName) {
+        return worldName == null ? "" : worldName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable view of one world's goals. Snapshots are replaced, never
+     * changed, so a reference check tells whether anything moved.
+     */
+    public static final class WorldGoals {
+        private static final WorldGoals EMPTY = new WorldGoals(Collections.emptyList());
+
+        private final List<Goal> goals;
+        private final List<Goal> unlocked;
+        private final List<Goal> locked;
+
+        private WorldGoals(List<Goal> ordered) {
+            List<Goal> unlockedGoals = new ArrayList<>();
+            List<Goal> lockedGoals = new ArrayList<>();
+            for (Goal goal : ordered) {
+                if (goal.getState() == State.ACTIVE) {
+                    unlockedGoals.add(goal);
+                } else {
+                    lockedGoals.add(goal);
+                }
+            }
+            this.goals = List.copyOf(ordered);
+            this.unlocked = List.copyOf(unlockedGoals);
+            this.locked = List.copyOf(lockedGoals);
+        }
+
+        /**
+         * Every goal of the world that is not completed, in display order
+         */
+        public List<Goal> getGoals() {
+            return goals;
+        }
+
+        /**
+         * Goals that accept turn-ins right now, in display order
+         */
+        public List<Goal> getUnlocked() {
+            return unlocked;
+        }
+
+        /**
+         * Paused and cancelled goals, in display order
+         */
+        public List<Goal> getLocked() {
+            return locked;
+        }
+
+        /**
+         * Head of the display order: the queue's active goal, or the oldest goal without a queue
+         */
+        public Goal getCurrent() {
+            return goals.isEmpty() ? null : goals.get(0);
+        }
+    }
+}
@@ -0,0 +1,239 @@
+package com.community.goals.logic;
+
+import com.community.goals.Goal;
+import org.bukkit.Material;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.*;
+
+/**
+ * Routes a whole inventory into every active goal of a world in one pass.
+ * For each world a material -> goal routing table is built from the goals'
+ * compiled matchers and kept until a goal in that world changes.
+ */
+public class DepositRouter implements GoalProgressTracker.ProgressListener {
+    private static final Material[] MATERIALS = Material.values();
+    private static final int[] NO_GOALS = new int[0];
+
+    private final ActiveGoalIndex goalIndex;
+    private final TurnInHandler turnInHandler;
+    private final Map<String, RoutingTable> tables;
+
+    public DepositRouter(ActiveGoalIndex goalIndex, TurnInHandler turnInHandler) {
+        this.goalIndex = goalIndex;
+        this.turnInHandler = turnInHandler;
+        this.tables = new HashMap<>();
+    }
+
+    /**
+     * Deposit everything in the inventory that an active goal of the world still needs.
+     * Older goals are filled first and each goal takes at most the contributor's
+     * remaining allowance. Items are only removed if the turn-in succeeds.
+     */
+    public DepositResult depositAll(Inventory inventory, String worldName, UUID submitterId, String submitterName) {
+        RoutingTable table = getTable(worldName);
+        if (table.goals.length == 0) {
+            return DepositResult.fail("There are no active goals in this world");
+        }
+
+        BatchSelector selector = new BatchSelector(table, submitterId);
+        InventoryTransaction transaction = InventoryTransaction.select(inventory, selector, null);
+        if (transaction.isEmpty()) {
+            return DepositResult.fail("You don't have any items the active goals still need");
+        }
+
+        Map<String, long[]> countsByGoal = new LinkedHashMap<>();
+        Map<String, String> summaries = new LinkedHashMap<>();
+        for (MaterialSelection selection : selector.selections) {
+            if (selection == null || selection.getTotalItems() <= 0) {
+                continue;
+            }
+            countsByGoal.put(selection.getGoal().getId(), selection.getItemCounts());
+            summaries.put(selection.getGoal().getId(), selection.getGoal().getName() + ": " + selection.describe());
+        }
+
+        List<TurnInHandler.TurnInResult> results = turnInHandler.processTransaction(
+            TurnInJournal.newTransactionId(), submitterId, submitterName, countsByGoal, transaction);
+        if (!results.get(0).isSuccess()) {
+            return DepositResult.fail(results.get(0).getMessage());
+        }
+        return DepositResult.success(results, summaries, transaction.getSelectedItems());
+    }
+
+    /**
+     * Active goals of the world that accept the material, oldest first
+     */
+    public List<Goal> getGoalsAccepting(String worldName, Material material) {
+        RoutingTable table = getTable(worldName);
+        int[] indexes = table.goalsByOrdinal[material.ordinal()];
+        if (indexes.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Goal> goals = new ArrayList<>(indexes.length);
+        for (int index : indexes) {
+            goals.add(table.goals[index]);
+        }
+        return goals;
+    }
+
+    private RoutingTable getTable(String worldName) {
+        String key = worldName == null ? "" : worldName.toLowerCase(Locale.ROOT);
+        RoutingTable table = tables.get(key);
+        if (table == null) {
+            table = buildTable(worldName);
+            tables.put(key, table);
+        }
+        return table;
+    }
+
+    private RoutingTable buildTable(String worldName) {
+        List<Goal> active = new ArrayList<>();
+        for (Goal goal : goalIndex.getWorld(worldName).getUnlocked()) {
+            if (goal.getItemMatcher().acceptsAnything()) {
+                active.add(goal);
+            }
+        }
+        active.sort(Comparator.comparingLong(Goal::getCreatedAt));
+
+        Goal[] goals = active.toArray(new Goal[0]);
+        int[][] goalsByOrdinal = new int[MATERIALS.length][];
+        int[] scratch = new int[goals.length];
+        for (Material material : MATERIALS) {
+            int count = 0;
+            for (int i = 0; i < goals.length; i++) {
+                if (goals[i].getItemMatcher().accepts(material)) {
+                    scratch[count++] = i;
+                }
+            }
+            goalsByOrdinal[material.ordinal()] = count == 0 ? NO_GOALS : Arrays.copyOf(scratch, count);
+        }
+        return new RoutingTable(goals, goalsByOrdinal);
+    }
+
+    private void invalidate(Goal goal) {
+        String worldName = goal.getWorldName();
+        tables.remove(worldName == null ? "" : worldName.toLowerCase(Locale.ROOT));
+    }
+
+    @Override
+    public void onProgressUpdated(Goal goal, long previousProgress, long amountAdded) {
+        // Progress alone does not change which goals accept which items
+    }
+
+    @Override
+    public void onGoalCompleted(Goal goal) {
+        invalidate(goal);
+    }
+
+    @Override
+    public void onGoalCreated(Goal goal) {
+        invalidate(goal);
+    }
+
+    @Override
+    public void onGoalDeleted(Goal goal) {
+        invalidate(goal);
+    }
+
+    @Override
+    public void onGoalUpdated(Goal goal) {
+        invalidate(goal);
+    }
+
+    /**
+     * Active goals of a world and, per material ordinal, the goals accepting it
+     */
+    private static class RoutingTable {
+        private final Goal[] goals;
+        private final int[][] goalsByOrdinal;
+
+        private RoutingTable(Goal[] goals, int[][] goalsByOrdinal) {
+            this.goals = goals;
+            this.goalsByOrdinal = goalsByOrdinal;
+        }
+    }
+
+    /**
+     * Splits each offered stack across the goals that accept its material
+     */
+    private static class BatchSelector implements InventoryTransaction.Selector {
+        private final RoutingTable table;
+        private final UUID contributorId;
+        private final MaterialSelection[] selections;
+
+        private BatchSelector(RoutingTable table, UUID contributorId) {
+            this.table = table;
+            this.contributorId = contributorId;
+            this.selections = new MaterialSelection[table.goals.length];
+        }
+
+        @Override
+        public int offer(ItemStack item, int available) {
+            int[] candidates = table.goalsByOrdinal[item.getType().ordinal()];
+            int accepted = 0;
+            for (int i = 0; i < candidates.length && accepted < available; i++) {
+                int index = candidates[i];
+                MaterialSelection selection = selections[index];
+                if (selection == null) {
+                    selection = new MaterialSelection(table.goals[index], Long.MAX_VALUE, contributorId);
+                    selections[index] = selection;
+                }
+                accepted += selection.offer(item, available - accepted);
+            }
+            return accepted;
+        }
+    }
+
+    /**
+     * Outcome of a deposit-all request
+     */
+    public static class DepositResult {
+        private final boolean success;
+        private final String message;
+        private final List<TurnInHandler.TurnInResult> results;
+        private final Map<String, String> summaries;
+        private final long itemsDeposited;
+
+        private DepositResult(boolean success, String message, List<TurnInHandler.TurnInResult> results,
+                              Map<String, String> summaries, long itemsDeposited) {
+            this.success = success;
+            this.message = message;
+            this.results = results;
+            this.summaries = summaries;
+            this.itemsDeposited = itemsDeposited;
+        }
+
+        public static DepositResult success(List<TurnInHandler.TurnInResult> results,
+                                            Map<String, String> summaries, long itemsDeposited) {
+            return new DepositResult(true, "Deposit processed successfully", results, summaries, itemsDeposited);
+        }
+
+        public static DepositResult fail(String message) {
+            return new DepositResult(false, message, Collections.emptyList(), Collections.emptyMap(), 0);
+        }
+
+        public boolean isSuccess() {
+            return success;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public List<TurnInHandler.TurnInResult> getResults() {
+            return results;
+        }
+
+        /**
+         * Per-goal summary such as "Iron Drive: 32 iron ingot"
+         */
+        public String getSummary(String goalId) {
+            return summaries.get(goalId);
+        }
+
+        public long getItemsDeposited() {
+            return itemsDeposited;
+        }
+    }
+}
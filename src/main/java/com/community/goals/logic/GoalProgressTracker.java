@@ -12,6 +12,8 @@ public class GoalProgressTracker {
     private final Map<String, Goal> goals;
     private final PersistenceManager persistenceManager;
     private final List<ProgressListener> listeners;
+    private TurnInJournal journal;
+    private boolean dirty;
 
     public GoalProgressTracker(PersistenceManager persistenceManager) {
         this.persistenceManager = persistenceManager;
@@ -40,7 +42,7 @@ public class GoalProgressTracker {
 
         Goal goal = new Goal(id, name, description, targetProgress, worldName);
         goals.put(id, goal);
-        persistenceManager.saveGoal(goal);
+        save();
         notifyGoalCreated(goal);
         return goal;
     }
@@ -115,16 +117,24 @@ public class GoalProgressTracker {
      * Add progress to a goal
      */
     public void addProgress(String goalId, long amount) {
+        addProgress(goalId, amount, null);
+    }
+
+    /**
+     * Add progress to a goal and count it towards a contributor (may be null)
+     */
+    public void addProgress(String goalId, long amount, UUID contributorId) {
         Goal goal = goals.get(goalId);
         if (goal == null) {
             throw new IllegalArgumentException("Goal not found: " + goalId);
         }
+        goal.addContribution(contributorId, amount);
 
         long oldProgress = goal.getCurrentProgress();
         boolean wasCompleted = goal.isCompleted();
         
         goal.addProgress(amount);
-        persistenceManager.saveGoal(goal);
+        save();
         
         notifyProgressUpdated(goal, oldProgress, amount);
         
@@ -133,6 +143,121 @@ public class GoalProgressTracker {
         }
     }
 
+    /**
+     * Credit per-material item counts (indexed by requirement slot) to a goal.
+     * Returns the weighted points that were added.
+     */
+    public long depositMaterials(String goalId, long[] itemCounts) {
+        Goal goal = goals.get(goalId);
+        if (goal == null) {
+            throw new IllegalArgumentException("Goal not found: " + goalId);
+        }
+
+        long points = goal.getMaterialRequirements().pointsFor(itemCounts);
+        if (points <= 0) {
+            return 0;
+        }
+        goal.getMaterialRequirements().deliver(itemCounts);
+        addProgress(goalId, points);
+        return points;
+    }
+
+    /**
+     * Credit several goals at once. Counts are indexed by each goal's matcher
+     * slots. The points are also counted towards the contributor, if given.
+     * The goals are only marked dirty: they are written by the next
+     * {@link #flushDirtyGoals()}, and until then the turn-in journal holds the
+     * transaction. Listeners are notified after all progress has been applied.
+     * Returns the points added per goal.
+     */
+    public Map<String, Long> depositMaterialsBatch(Map<String, long[]> countsByGoal, String transactionId,
+                                                   UUID contributorId) {
+        return depositMaterialsBatch(countsByGoal,
+            transactionId != null ? Collections.singletonList(transactionId) : Collections.emptyList(), contributorId);
+    }
+
+    /**
+     * Credit several goals at once for a group of journaled transactions, such
+     * as the pickups auto-deposited during one tick
+     */
+    public Map<String, Long> depositMaterialsBatch(Map<String, long[]> countsByGoal,
+                                                   Collection<String> transactionIds, UUID contributorId) {
+        Map<String, Long> added = new LinkedHashMap<>();
+        List<Goal> updated = new ArrayList<>();
+        List<Long> previous = new ArrayList<>();
+        List<Boolean> completedBefore = new ArrayList<>();
+
+        for (Map.Entry<String, long[]> entry : countsByGoal.entrySet()) {
+            Goal goal = goals.get(entry.getKey());
+            if (goal == null) {
+                continue;
+            }
+            long points = goal.getMaterialRequirements().pointsFor(entry.getValue());
+            if (points <= 0) {
+                continue;
+            }
+            updated.add(goal);
+            previous.add(goal.getCurrentProgress());
+            completedBefore.add(goal.isCompleted());
+            goal.getMaterialRequirements().deliver(entry.getValue());
+            goal.addContribution(contributorId, points);
+            goal.addProgress(points);
+            added.put(goal.getId(), points);
+        }
+
+        if (updated.isEmpty()) {
+            return added;
+        }
+        for (String transactionId : transactionIds) {
+            persistenceManager.recordAppliedTransaction(transactionId);
+        }
+        dirty = true;
+
+        for (int i = 0; i < updated.size(); i++) {
+            Goal goal = updated.get(i);
+            notifyProgressUpdated(goal, previous.get(i), added.get(goal.getId()));
+        }
+        for (int i = 0; i < updated.size(); i++) {
+            Goal goal = updated.get(i);
+            if (!completedBefore.get(i) && goal.isCompleted()) {
+                notifyGoalCompleted(goal);
+            }
+        }
+        return added;
+    }
+
+    /**
+     * Remember a contributor's name for leaderboards; saved with the next progress update
+     */
+    public void recordContributorName(UUID playerId, String name) {
+        persistenceManager.recordContributorName(playerId, name);
+    }
+
+    /**
+     * Last known name of a contributor, or null
+     */
+    public String getContributorName(UUID playerId) {
+        return persistenceManager.getContributorName(playerId);
+    }
+
+    /**
+     * Check whether a turn-in transaction has been credited to its goals
+     */
+    public boolean isTransactionApplied(String transactionId) {
+        return persistenceManager.isTransactionApplied(transactionId);
+    }
+
+    /**
+     * Save a goal after its settings changed (state, rules, rewards) and notify listeners
+     */
+    public void markUpdated(Goal goal) {
+        if (goal == null || goals.get(goal.getId()) != goal) {
+            return;
+        }
+        save();
+        notifyGoalUpdated(goal);
+    }
+
     /**
      * Set exact progress for a goal (useful for admin commands)
      */
@@ -147,7 +272,7 @@ public class GoalProgressTracker {
         
         // Reset progress and add the new amount
         goal.addProgress(amount - oldProgress);
-        persistenceManager.saveGoal(goal);
+        save();
         
         notifyProgressUpdated(goal, oldProgress, amount - oldProgress);
         
@@ -162,7 +287,7 @@ public class GoalProgressTracker {
     public void deleteGoal(String goalId) {
         Goal goal = goals.remove(goalId);
         if (goal != null) {
-            persistenceManager.deleteGoal(goalId);
+            save();
             notifyGoalDeleted(goal);
         }
     }
@@ -177,7 +302,7 @@ public class GoalProgressTracker {
         }
 
         goal.setTargetProgress(newTarget);
-        persistenceManager.saveGoal(goal);
+        save();
         notifyGoalUpdated(goal);
     }
 
@@ -278,7 +403,45 @@ public class GoalProgressTracker {
      * Save all goals to storage (useful for periodic saves)
      */
     public void saveAllGoals() {
-        persistenceManager.saveGoals(goals.values());
+        save();
+    }
+
+    /**
+     * Save the goals if turn-ins changed them since the last save
+     */
+    public void flushDirtyGoals() {
+        if (dirty) {
+            save();
+        }
+    }
+
+    /**
+     * Journal that gets a checkpoint record with every save
+     */
+    public void setJournal(TurnInJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Id of the journal checkpoint the saved goals include, or null
+     */
+    public String getJournalCheckpoint() {
+        return persistenceManager.getJournalCheckpoint();
+    }
+
+    /**
+     * Write every goal in one pass. The journal checkpoint goes first so that
+     * transactions committed after it are known to be missing from the file;
+     * the journal is only compacted once the goals are safely written.
+     */
+    private void save() {
+        String checkpoint = journal != null ? journal.checkpoint() : null;
+        if (persistenceManager.saveGoals(goals.values(), checkpoint)) {
+            dirty = false;
+            if (journal != null) {
+                journal.compact();
+            }
+        }
     }
 
     /**
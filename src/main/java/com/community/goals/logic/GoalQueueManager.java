@@ -12,6 +12,7 @@ public class GoalQueueManager {
     private final boolean queueEnabled;
     private final Map<String, List<String>> queues;
     private final String defaultWorld;
+    private final List<QueueListener> listeners;
 
     public GoalQueueManager(GoalProgressTracker tracker, PersistenceManager persistence, boolean queueEnabled, String defaultWorld) {
         this.tracker = tracker;
@@ -19,6 +20,7 @@ public class GoalQueueManager {
         this.queueEnabled = queueEnabled;
         this.defaultWorld = defaultWorld;
         this.queues = new HashMap<>();
+        this.listeners = new ArrayList<>();
         loadQueue();
         if (queueEnabled) {
             syncQueueWithGoals();
@@ -29,6 +31,10 @@ public class GoalQueueManager {
         return queueEnabled;
     }
 
+    public void addListener(QueueListener listener) {
+        listeners.add(listener);
+    }
+
     public List<String> getQueue(String worldName) {
         if (!queueEnabled) {
             return Collections.emptyList();
@@ -49,7 +55,7 @@ public class GoalQueueManager {
             queue.add(goal.getId());
         }
         enforceQueueStates(normalize(goal.getWorldName()));
-        saveQueue();
+        saveQueue(goal.getWorldName());
     }
 
     public void handleGoalCompleted(Goal goal) {
@@ -64,7 +70,7 @@ public class GoalQueueManager {
             if (wasActive) {
                 activateNextGoal(goal.getWorldName());
             }
-            saveQueue();
+            saveQueue(goal.getWorldName());
         }
     }
 
@@ -80,7 +86,7 @@ public class GoalQueueManager {
             if (wasActive) {
                 activateNextGoal(goal.getWorldName());
             }
-            saveQueue();
+            saveQueue(goal.getWorldName());
         }
     }
 
@@ -93,7 +99,7 @@ public class GoalQueueManager {
             queue.add(goalId);
         }
         enforceQueueStates(normalize(worldName));
-        saveQueue();
+        saveQueue(worldName);
     }
 
     public void removeFromQueue(String worldName, String goalId) {
@@ -109,7 +115,7 @@ public class GoalQueueManager {
         if (wasActive) {
             activateNextGoal(worldName);
         }
-        saveQueue();
+        saveQueue(worldName);
     }
 
     public boolean moveInQueue(String worldName, String goalId, int newIndex) {
@@ -128,7 +134,7 @@ public class GoalQueueManager {
         int targetIndex = Math.max(0, Math.min(queue.size(), newIndex));
         queue.add(targetIndex, goalId);
         enforceQueueStates(normalize(worldName));
-        saveQueue();
+        saveQueue(worldName);
         return true;
     }
 
@@ -137,7 +143,7 @@ public class GoalQueueManager {
             return;
         }
         enforceQueueStates(normalize(worldName));
-        saveQueue();
+        saveQueue(worldName);
     }
 
     public void advanceToNextGoal(String worldName) {
@@ -147,13 +153,13 @@ public class GoalQueueManager {
         List<String> queue = queues.get(normalize(worldName));
         if (queue == null || queue.size() <= 1) {
             enforceQueueStates(normalize(worldName));
-            saveQueue();
+            saveQueue(worldName);
             return;
         }
         String current = queue.remove(0);
         queue.add(current);
         enforceQueueStates(normalize(worldName));
-        saveQueue();
+        saveQueue(worldName);
     }
 
     public boolean activateGoal(String worldName, String goalId) {
@@ -173,7 +179,7 @@ public class GoalQueueManager {
             queue.add(0, goalId);
         }
         enforceQueueStates(normalize(worldName));
-        saveQueue();
+        saveQueue(worldName);
         return true;
     }
 
@@ -185,6 +191,9 @@ public class GoalQueueManager {
             enforceQueueStates(worldKey);
         }
         saveQueue();
+        for (String worldKey : queues.keySet()) {
+            notifyListeners(worldKey);
+        }
     }
 
     public void refreshStates(String worldName) {
@@ -192,7 +201,7 @@ public class GoalQueueManager {
             return;
         }
         enforceQueueStates(normalize(worldName));
-        saveQueue();
+        saveQueue(worldName);
     }
 
     private void loadQueue() {
@@ -204,6 +213,20 @@ public class GoalQueueManager {
         persistence.saveGoalQueues(queues);
     }
 
+    /**
+     * Save the queues and tell listeners that one world's queue changed
+     */
+    private void saveQueue(String worldName) {
+        saveQueue();
+        notifyListeners(worldName);
+    }
+
+    private void notifyListeners(String worldName) {
+        for (QueueListener listener : listeners) {
+            listener.onQueueChanged(worldName);
+        }
+    }
+
     private void syncQueueWithGoals() {
         Map<String, List<Goal>> goalsByWorld = new HashMap<>();
         for (Goal goal : tracker.getAllGoals()) {
@@ -291,12 +314,12 @@ public class GoalQueueManager {
             if (id.equals(activeId)) {
                 if (goal.getState() != State.ACTIVE) {
                     goal.setState(State.ACTIVE);
-                    persistence.saveGoal(goal);
+                    tracker.markUpdated(goal);
                 }
             } else {
                 if (goal.getState() != State.PAUSED) {
                     goal.setState(State.PAUSED);
-                    persistence.saveGoal(goal);
+                    tracker.markUpdated(goal);
                 }
             }
         }
@@ -330,4 +353,11 @@ public class GoalQueueManager {
         }
         return worldName.toLowerCase(Locale.ROOT);
     }
+
+    /**
+     * Interface for queue change listeners
+     */
+    public interface QueueListener {
+        void onQueueChanged(String worldName);
+    }
 }
@@ -0,0 +1,326 @@
+package com.community.goals.logic;
+
+import org.bukkit.Material;
+import org.bukkit.Tag;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.ShulkerBox;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.BlockStateMeta;
+import org.bukkit.inventory.meta.BundleMeta;
+import org.bukkit.inventory.meta.ItemMeta;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selects, removes and (if needed) restores goal items in an inventory.
+ * Selection happens in a single pass over the contents; only the slots that
+ * contribute items are recorded and later written back. The original stack
+ * objects are kept as-is, so a rollback restores them with their full meta
+ * instead of handing back freshly built stacks.
+ *
+ * Shulker boxes and bundles that are not accepted themselves are opened one
+ * level deep. Their meta is read once during selection and written back once
+ * on apply or rollback.
+ */
+public class InventoryTransaction {
+    /**
+     * Decides how many items of a stack to take
+     */
+    public interface Selector {
+        int offer(ItemStack item, int available);
+    }
+
+    private enum Phase { SELECTED, APPLIED, ROLLED_BACK }
+
+    private final Inventory inventory;
+    private final int[] slots;
+    private final ItemStack[] originals;
+    private final int[] originalAmounts;
+    private final int[] taken;
+    private final int size;
+    private final List<NestedContainer> containers;
+    private final long selectedItems;
+    private Phase phase;
+
+    private InventoryTransaction(Inventory inventory, int[] slots, ItemStack[] originals,
+                                 int[] originalAmounts, int[] taken, int size,
+                                 List<NestedContainer> containers, long selectedItems) {
+        this.inventory = inventory;
+        this.slots = slots;
+        this.originals = originals;
+        this.originalAmounts = originalAmounts;
+        this.taken = taken;
+        this.size = size;
+        this.containers = containers;
+        this.selectedItems = selectedItems;
+        this.phase = Phase.SELECTED;
+    }
+
+    /**
+     * Offer every stack in the inventory to the selector in one pass.
+     * Nothing is removed until {@link #apply()} is called.
+     *
+     * @param filter only offer stacks of this material, or null for all
+     */
+    public static InventoryTransaction select(Inventory inventory, Selector selector, Material filter) {
+        return select(inventory, selector, filter, -1L);
+    }
+
+    /**
+     * Like {@link #select(Inventory, Selector, Material)}, but only looks at
+     * the slots whose bit is set in {@code slotMask}; the others are skipped
+     * without being read. Slots from 64 on are always read.
+     */
+    public static InventoryTransaction select(Inventory inventory, Selector selector, Material filter, long slotMask) {
+        ItemStack[] contents = inventory.getContents();
+        int[] slots = new int[contents.length];
+        ItemStack[] originals = new ItemStack[contents.length];
+        int[] originalAmounts = new int[contents.length];
+        int[] taken = new int[contents.length];
+        List<NestedContainer> containers = new ArrayList<>();
+        int size = 0;
+        long selectedItems = 0;
+
+        for (int slot = 0; slot < contents.length; slot++) {
+            if (slot < Long.SIZE && (slotMask & (1L << slot)) == 0) {
+                continue;
+            }
+            ItemStack item = contents[slot];
+            if (item == null) {
+                continue;
+            }
+            boolean container = isContainer(item);
+            boolean matchesFilter = filter == null || item.getType() == filter;
+            if (!matchesFilter && !container) {
+                continue;
+            }
+
+            int amount = item.getAmount();
+            int accepted = matchesFilter ? selector.offer(item, amount) : 0;
+            if (accepted > 0) {
+                slots[size] = slot;
+                originals[size] = item;
+                originalAmounts[size] = amount;
+                taken[size] = accepted;
+                size++;
+                selectedItems += accepted;
+                continue;
+            }
+
+            if (container) {
+                NestedContainer nested = NestedContainer.select(slot, item, selector, filter);
+                if (nested != null) {
+                    containers.add(nested);
+                    selectedItems += nested.selectedItems;
+                }
+            }
+        }
+
+        return new InventoryTransaction(inventory, slots, originals, originalAmounts, taken, size,
+            containers, selectedItems);
+    }
+
+    /**
+     * Shulker boxes and bundles holding a single item; stacked containers are always empty
+     */
+    static boolean isContainer(ItemStack item) {
+        if (item.getAmount() != 1 || !item.hasItemMeta()) {
+            return false;
+        }
+        Material type = item.getType();
+        return Tag.SHULKER_BOXES.isTagged(type) || Tag.ITEMS_BUNDLES.isTagged(type);
+    }
+
+    /**
+     * Items inside a shulker box or bundle, or null if it has none. Read-only;
+     * the returned stacks must not be modified.
+     */
+    static ItemStack[] readContents(ItemStack container) {
+        ItemMeta meta = container.getItemMeta();
+        if (meta instanceof BlockStateMeta stateMeta) {
+            if (stateMeta.hasBlockState() && stateMeta.getBlockState() instanceof ShulkerBox box) {
+                return box.getInventory().getContents();
+            }
+        } else if (meta instanceof BundleMeta bundleMeta && bundleMeta.hasItems()) {
+            return bundleMeta.getItems().toArray(new ItemStack[0]);
+        }
+        return null;
+    }
+
+    public long getSelectedItems() {
+        return selectedItems;
+    }
+
+    public boolean isEmpty() {
+        return size == 0 && containers.isEmpty();
+    }
+
+    /**
+     * Copies of the selected items with their selected amounts, for journaling
+     */
+    public List<ItemStack> getSelectedStacks() {
+        List<ItemStack> stacks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            stacks.add(originals[i].asQuantity(taken[i]));
+        }
+        for (NestedContainer container : containers) {
+            for (int i = 0; i < container.contents.length; i++) {
+                if (container.taken[i] > 0) {
+                    stacks.add(container.contents[i].asQuantity(container.taken[i]));
+                }
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * Remove the selected items, writing only the slots that changed
+     */
+    public void apply() {
+        if (phase != Phase.SELECTED) {
+            throw new IllegalStateException("Transaction already " + phase.name().toLowerCase());
+        }
+        // Set before the first write so a write that throws partway can still be rolled back;
+        // rolling back a slot that was never written just puts its original stack back
+        phase = Phase.APPLIED;
+        for (int i = 0; i < size; i++) {
+            int left = originalAmounts[i] - taken[i];
+            if (left <= 0) {
+                inventory.setItem(slots[i], null);
+            } else {
+                originals[i].setAmount(left);
+                inventory.setItem(slots[i], originals[i]);
+            }
+        }
+        for (NestedContainer container : containers) {
+            container.write(inventory, true);
+        }
+    }
+
+    /**
+     * Put the original stacks back exactly as they were
+     */
+    public void rollback() {
+        if (phase != Phase.APPLIED) {
+            return;
+        }
+        for (int i = 0; i < size; i++) {
+            originals[i].setAmount(originalAmounts[i]);
+            inventory.setItem(slots[i], originals[i]);
+        }
+        for (NestedContainer container : containers) {
+            container.write(inventory, false);
+        }
+        phase = Phase.ROLLED_BACK;
+    }
+
+    /**
+     * Items selected from inside a shulker box or bundle. The contents array
+     * and meta are read once; the inner stacks are restored from their
+     * recorded amounts on rollback.
+     */
+    private static class NestedContainer {
+        private final int slot;
+        private final ItemStack container;
+        private final ItemMeta meta;
+        private final ShulkerBox box;
+        private final ItemStack[] contents;
+        private final int[] originalAmounts;
+        private final int[] taken;
+        private long selectedItems;
+
+        private NestedContainer(int slot, ItemStack container, ItemMeta meta, ShulkerBox box, ItemStack[] contents) {
+            this.slot = slot;
+            this.container = container;
+            this.meta = meta;
+            this.box = box;
+            this.contents = contents;
+            this.originalAmounts = new int[contents.length];
+            this.taken = new int[contents.length];
+        }
+
+        private static NestedContainer select(int slot, ItemStack item, Selector selector, Material filter) {
+            ItemMeta meta = item.getItemMeta();
+            ShulkerBox box = null;
+            ItemStack[] contents;
+            if (meta instanceof BlockStateMeta stateMeta) {
+                if (!stateMeta.hasBlockState()) {
+                    return null;
+                }
+                BlockState state = stateMeta.getBlockState();
+                if (!(state instanceof ShulkerBox)) {
+                    return null;
+                }
+                box = (ShulkerBox) state;
+                contents = box.getInventory().getContents();
+            } else if (meta instanceof BundleMeta bundleMeta) {
+                if (!bundleMeta.hasItems()) {
+                    return null;
+                }
+                contents = bundleMeta.getItems().toArray(new ItemStack[0]);
+            } else {
+                return null;
+            }
+
+            NestedContainer nested = new NestedContainer(slot, item, meta, box, contents);
+            for (int i = 0; i < contents.length; i++) {
+                ItemStack inner = contents[i];
+                if (inner == null || (filter != null && inner.getType() != filter)) {
+                    continue;
+                }
+                int amount = inner.getAmount();
+                int accepted = selector.offer(inner, amount);
+                if (accepted > 0) {
+                    nested.originalAmounts[i] = amount;
+                    nested.taken[i] = accepted;
+                    nested.selectedItems += accepted;
+                }
+            }
+            return nested.selectedItems > 0 ? nested : null;
+        }
+
+        /**
+         * Write the container back with the selected items removed, or with the original amounts
+         */
+        private void write(Inventory inventory, boolean removeSelected) {
+            // Emptied stacks are left at their original amount and written as null,
+            // since setting a mirrored stack to 0 can drop its handle
+            ItemStack[] written = new ItemStack[contents.length];
+            for (int i = 0; i < contents.length; i++) {
+                written[i] = contents[i];
+                if (taken[i] <= 0) {
+                    continue;
+                }
+                int left = removeSelected ? originalAmounts[i] - taken[i] : originalAmounts[i];
+                if (left <= 0) {
+                    written[i] = null;
+                } else {
+                    contents[i].setAmount(left);
+                }
+            }
+
+            if (box != null) {
+                Inventory boxInventory = box.getInventory();
+                for (int i = 0; i < contents.length; i++) {
+                    if (taken[i] > 0) {
+                        boxInventory.setItem(i, written[i]);
+                    }
+                }
+                ((BlockStateMeta) meta).setBlockState(box);
+            } else {
+                List<ItemStack> items = new ArrayList<>(contents.length);
+                for (ItemStack inner : written) {
+                    if (inner != null) {
+                        items.add(inner);
+                    }
+                }
+                ((BundleMeta) meta).setItems(items);
+            }
+
+            container.setItemMeta(meta);
+            inventory.setItem(slot, container);
+        }
+    }
+}
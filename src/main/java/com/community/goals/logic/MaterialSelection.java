@@ -0,0 +1,148 @@
+package com.community.goals.logic;
+
+import com.community.goals.Goal;
+import com.community.goals.ItemMatcher;
+import com.community.goals.MaterialRequirements;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.UUID;
+
+/**
+ * Running tally of items accepted for a goal during a single pass over an
+ * inventory. Each offered stack is matched against the goal's compiled
+ * acceptance rules and capped by the material's remaining target, the goal's
+ * remaining points, an optional item budget and the contributor's remaining
+ * allowance under the goal's per-player cap.
+ */
+public class MaterialSelection implements InventoryTransaction.Selector {
+    private final Goal goal;
+    private final MaterialRequirements requirements;
+    private final ItemMatcher matcher;
+    private final long[] itemCounts;
+    private long remainingPoints;
+    private long allowance;
+    private long itemBudget;
+    private long totalItems;
+    private boolean capped;
+
+    public MaterialSelection(Goal goal, long itemBudget) {
+        this(goal, itemBudget, null);
+    }
+
+    public MaterialSelection(Goal goal, long itemBudget, UUID contributorId) {
+        this.goal = goal;
+        this.requirements = goal.getMaterialRequirements();
+        this.matcher = goal.getItemMatcher();
+        this.itemCounts = new long[matcher.getSlotCount()];
+        this.remainingPoints = Math.max(0, goal.getTargetProgress() - goal.getCurrentProgress());
+        this.allowance = goal.getRemainingAllowance(contributorId);
+        this.itemBudget = itemBudget;
+    }
+
+    /**
+     * Offer a stack and return how many of its items are accepted
+     */
+    public int offer(ItemStack item) {
+        return item == null ? 0 : offer(item, item.getAmount());
+    }
+
+    /**
+     * Offer up to {@code available} items of a stack and return how many are accepted
+     */
+    @Override
+    public int offer(ItemStack item, int available) {
+        if (item == null || available <= 0 || itemBudget <= 0) {
+            return 0;
+        }
+        int slot = matcher.slotOf(item);
+        if (slot == ItemMatcher.REJECTED) {
+            return 0;
+        }
+        return (int) offerCount(slot, available);
+    }
+
+    /**
+     * Offer items already matched to a matcher slot and return how many are accepted
+     */
+    public long offerCount(int slot, long available) {
+        if (available <= 0) {
+            return 0;
+        }
+        if (remainingPoints <= 0 || allowance <= 0 || itemBudget <= 0) {
+            capped |= itemBudget > 0;
+            return 0;
+        }
+
+        long points = requirements.getSlotPoints(slot);
+        long cap = requirements.getSlotRemainingItems(slot) - itemCounts[slot];
+        cap = Math.min(cap, (remainingPoints + points - 1) / points);
+        if (allowance != Long.MAX_VALUE) {
+            // The cap is strict: never go over it, even for weighted items
+            cap = Math.min(cap, allowance / points);
+        }
+        capped |= cap < Math.min(available, itemBudget);
+        cap = Math.min(cap, itemBudget);
+        long accepted = Math.min(available, Math.max(0, cap));
+        if (accepted <= 0) {
+            return 0;
+        }
+
+        itemCounts[slot] += accepted;
+        totalItems += accepted;
+        itemBudget -= accepted;
+        remainingPoints -= accepted * points;
+        if (allowance != Long.MAX_VALUE) {
+            allowance -= accepted * points;
+        }
+        return accepted;
+    }
+
+    /**
+     * Accepted item counts indexed by matcher slot
+     */
+    public long[] getItemCounts() {
+        return itemCounts;
+    }
+
+    public Goal getGoal() {
+        return goal;
+    }
+
+    public long getTotalItems() {
+        return totalItems;
+    }
+
+    /**
+     * True when the goal's remaining need or the contributor's cap turned
+     * away items that were offered within the budget
+     */
+    public boolean isCapped() {
+        return capped;
+    }
+
+    public long getPoints() {
+        return requirements.pointsFor(itemCounts);
+    }
+
+    /**
+     * Human readable summary such as "32 iron ingot, 5 gold ingot"
+     */
+    public String describe() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < itemCounts.length; i++) {
+            if (itemCounts[i] <= 0) {
+                continue;
+            }
+            if (builder.length() > 0) {
+                builder.append(", ");
+            }
+            builder.append(itemCounts[i]).append(' ');
+            if (i < requirements.size()) {
+                builder.append(requirements.getMaterial(i).name().toLowerCase().replace("_", " "));
+            } else {
+                builder.append("items");
+            }
+        }
+        return builder.toString();
+    }
+}
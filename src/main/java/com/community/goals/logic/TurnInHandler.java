@@ -3,22 +3,33 @@ package com.community.goals.logic;
 import com.community.goals.Goal;
 import com.community.goals.State;
 
+import java.util.*;
+
 /**
  * Handles turn-in of progress (when players submit proof of progress)
  */
 public class TurnInHandler {
     private final GoalProgressTracker tracker;
     private final TurnInValidator validator;
+    private final TurnInJournal journal;
 
-    public TurnInHandler(GoalProgressTracker tracker) {
+    public TurnInHandler(GoalProgressTracker tracker, TurnInJournal journal) {
         this.tracker = tracker;
         this.validator = new TurnInValidator();
+        this.journal = journal;
     }
 
     /**
      * Process a turn-in request for a goal
      */
     public TurnInResult processTurnIn(String goalId, long amount, String submitterName) {
+        return processTurnIn(goalId, amount, null, submitterName);
+    }
+
+    /**
+     * Process a turn-in request for a goal, enforcing the submitter's contribution cap
+     */
+    public TurnInResult processTurnIn(String goalId, long amount, UUID submitterId, String submitterName) {
         // Validate goal exists
         Goal goal = tracker.getGoal(goalId);
         if (goal == null) {
@@ -37,11 +48,15 @@ public class TurnInHandler {
         if (!validator.isValidAmount(amount)) {
             return TurnInResult.fail("Invalid progress amount: " + amount);
         }
+        if (amount > goal.getRemainingAllowance(submitterId)) {
+            return TurnInResult.fail(allowanceMessage(goal, submitterId));
+        }
 
         // Process the turn-in
         try {
             long previousProgress = goal.getCurrentProgress();
-            tracker.addProgress(goalId, amount);
+            tracker.recordContributorName(submitterId, submitterName);
+            tracker.addProgress(goalId, amount, submitterId);
             
             boolean goalCompleted = goal.isCompleted();
             long newProgress = goal.getCurrentProgress();
@@ -60,10 +75,97 @@ public class TurnInHandler {
         }
     }
 
+    /**
+     * Run a journaled turn-in. Every goal is validated, the transaction is
+     * journaled, the selected items are removed and all goals are credited in
+     * one batched update. If anything fails the items are put back and a
+     * single failed result is returned; otherwise one result per goal.
+     *
+     * @param countsByGoal item counts per goal id, indexed by each goal's matcher slots
+     */
+    public List<TurnInResult> processTransaction(String transactionId, UUID submitterId, String submitterName,
+                                                 Map<String, long[]> countsByGoal, InventoryTransaction transaction) {
+        List<TurnInResult> results = new ArrayList<>();
+        Map<String, Long> previous = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : countsByGoal.entrySet()) {
+            Goal goal = tracker.getGoal(entry.getKey());
+            if (goal == null) {
+                results.add(TurnInResult.fail("Goal not found: " + entry.getKey()));
+                return results;
+            }
+            if (goal.isCompleted() || goal.getState() != State.ACTIVE) {
+                results.add(TurnInResult.fail("Goal is not active: " + goal.getName()));
+                return results;
+            }
+            long points = goal.getMaterialRequirements().pointsFor(entry.getValue());
+            if (!validator.isValidAmount(points)) {
+                results.add(TurnInResult.fail("Invalid progress amount: " + points));
+                return results;
+            }
+            if (points > goal.getRemainingAllowance(submitterId)) {
+                results.add(TurnInResult.fail(allowanceMessage(goal, submitterId)));
+                return results;
+            }
+            previous.put(entry.getKey(), goal.getCurrentProgress());
+        }
+        if (previous.isEmpty()) {
+            results.add(TurnInResult.fail("Nothing to turn in"));
+            return results;
+        }
+
+        if (!journal.begin(transactionId, submitterId, submitterName, countsByGoal, transaction.getSelectedStacks())) {
+            results.add(TurnInResult.fail("This turn-in was already processed"));
+            return results;
+        }
+
+        Map<String, Long> added;
+        tracker.recordContributorName(submitterId, submitterName);
+        try {
+            transaction.apply();
+            added = tracker.depositMaterialsBatch(countsByGoal, transactionId, submitterId);
+        } catch (Exception e) {
+            if (tracker.isTransactionApplied(transactionId)) {
+                // Progress was credited and a listener failed afterwards; keep the items taken
+                journal.commit(transactionId);
+            } else {
+                transaction.rollback();
+                journal.abort(transactionId);
+            }
+            results.add(TurnInResult.fail("Error processing turn-in: " + e.getMessage()));
+            return results;
+        }
+        journal.commit(transactionId);
+
+        for (Map.Entry<String, Long> entry : added.entrySet()) {
+            // A completed goal may already have been removed by a completion listener
+            Goal goal = tracker.getGoal(entry.getKey());
+            long previousProgress = previous.get(entry.getKey());
+            long newProgress = goal != null ? goal.getCurrentProgress() : previousProgress + entry.getValue();
+            long target = goal != null ? goal.getTargetProgress() : newProgress;
+            results.add(TurnInResult.success(
+                submitterName,
+                entry.getKey(),
+                entry.getValue(),
+                previousProgress,
+                newProgress,
+                target,
+                goal == null || goal.isCompleted()
+            ));
+        }
+        return results;
+    }
+
     /**
      * Validate a turn-in before processing
      */
     public ValidationResult validateTurnIn(String goalId, long amount) {
+        return validateTurnIn(goalId, null, amount);
+    }
+
+    /**
+     * Validate a turn-in before processing, including the player's contribution cap
+     */
+    public ValidationResult validateTurnIn(String goalId, UUID playerId, long amount) {
         Goal goal = tracker.getGoal(goalId);
         if (goal == null) {
             return ValidationResult.invalid("Goal not found");
@@ -79,10 +181,21 @@ public class TurnInHandler {
         if (!validator.isValidAmount(amount)) {
             return ValidationResult.invalid("Invalid amount");
         }
+        if (amount > goal.getRemainingAllowance(playerId)) {
+            return ValidationResult.invalid(allowanceMessage(goal, playerId));
+        }
 
         return ValidationResult.valid();
     }
 
+    private String allowanceMessage(Goal goal, UUID playerId) {
+        long remaining = goal.getRemainingAllowance(playerId);
+        if (remaining <= 0) {
+            return "You've reached your contribution limit of " + goal.getContributionCap() + " for this goal";
+        }
+        return "You can only contribute " + remaining + " more to this goal";
+    }
+
     /**
      * Result of a turn-in operation
      */
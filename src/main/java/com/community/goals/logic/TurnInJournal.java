@@ -0,0 +1,383 @@
+package com.community.goals.logic;
+
+import com.community.goals.Goal;
+import com.community.goals.State;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.inventory.ItemStack;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Write-ahead journal for turn-ins. A transaction is written before any item
+ * is removed and marked committed once its progress has been credited. Goals
+ * are saved in batches, so every save first writes a checkpoint and stores its
+ * id with the goals; once the save succeeds the file is compacted down to the
+ * refunds still owed, the open transactions and that checkpoint. On startup,
+ * open transactions and transactions committed after the saved checkpoint are
+ * re-credited if their goals are still active, or refunded to the player on
+ * their next join.
+ *
+ * The journal is an append-only text file with one record per line:
+ * {@code B} (begin), {@code C} (commit), {@code A} (abort), {@code S}
+ * (checkpoint), {@code F} (refund owed) and {@code R} (refund delivered).
+ */
+public class TurnInJournal implements Listener {
+    private static final String JOURNAL_FILE = "turnin-journal.log";
+    private static final int MAX_RECENT_IDS = 10000;
+
+    private final Path journalPath;
+    private final Logger logger;
+    // Begin records of open transactions, kept for compaction
+    private final Map<String, String> pending;
+    private final Map<String, Boolean> recentIds;
+    private final Map<UUID, List<Refund>> refunds;
+    private String lastCheckpoint;
+    private Writer writer;
+
+    public TurnInJournal(String dataFolderPath, Logger logger) {
+        this.journalPath = Paths.get(dataFolderPath).resolve(JOURNAL_FILE);
+        this.logger = logger;
+        this.pending = new LinkedHashMap<>();
+        this.refunds = new HashMap<>();
+        this.recentIds = new LinkedHashMap<>(16, 0.75f, false) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > MAX_RECENT_IDS;
+            }
+        };
+    }
+
+    /**
+     * Create a new transaction id
+     */
+    public static String newTransactionId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Check whether an id has already been used
+     */
+    public boolean isKnown(String transactionId) {
+        return pending.containsKey(transactionId) || recentIds.containsKey(transactionId);
+    }
+
+    /**
+     * Journal a turn-in before its items are removed.
+     * Returns false if the id was already used.
+     */
+    public boolean begin(String transactionId, UUID playerId, String playerName,
+                         Map<String, long[]> countsByGoal, List<ItemStack> items) {
+        if (isKnown(transactionId)) {
+            return false;
+        }
+        String record = "B\t" + transactionId + "\t" + playerId + "\t" + playerName + "\t"
+            + encodeCounts(countsByGoal) + "\t" + encodeItems(items);
+        pending.put(transactionId, record);
+        append(record);
+        return true;
+    }
+
+    /**
+     * Mark a transaction as credited
+     */
+    public void commit(String transactionId) {
+        finish(transactionId, "C");
+    }
+
+    /**
+     * Mark a transaction as abandoned; its items were put back
+     */
+    public void abort(String transactionId) {
+        finish(transactionId, "A");
+    }
+
+    /**
+     * Write a checkpoint before the goals are saved and return its id.
+     * Transactions committed before it are included in that save.
+     */
+    public String checkpoint() {
+        lastCheckpoint = UUID.randomUUID().toString();
+        append("S\t" + lastCheckpoint);
+        return lastCheckpoint;
+    }
+
+    /**
+     * Rewrite the journal with only what is still needed after a successful
+     * save: refunds owed, open transactions and the checkpoint the saved goals
+     * point to. Committed transactions are all in the saved goals by now.
+     */
+    public void compact() {
+        close();
+        Path temp = journalPath.resolveSibling(JOURNAL_FILE + ".tmp");
+        try (Writer out = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            for (List<Refund> owed : refunds.values()) {
+                for (Refund refund : owed) {
+                    out.write("F\t" + refund.id + "\t" + refund.playerId + "\t" + encodeItems(refund.items) + "\n");
+                }
+            }
+            for (String record : pending.values()) {
+                out.write(record);
+                out.write('\n');
+            }
+            if (lastCheckpoint != null) {
+                out.write("S\t" + lastCheckpoint + "\n");
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to compact turn-in journal: " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warning("Failed to replace turn-in journal: " + e.getMessage());
+        }
+    }
+
+    private void finish(String transactionId, String record) {
+        if (pending.remove(transactionId) == null) {
+            return;
+        }
+        recentIds.put(transactionId, Boolean.TRUE);
+        append(record + "\t" + transactionId);
+    }
+
+    /**
+     * Replay the journal and settle transactions left open by a crash or
+     * committed after the last save, then save the goals, which compacts the
+     * file down to the refunds that are still owed. The tracker must have this
+     * journal attached.
+     */
+    public void recover(GoalProgressTracker tracker) {
+        Map<String, Entry> open = new LinkedHashMap<>();
+        Map<String, Entry> unsaved = new LinkedHashMap<>();
+        Map<String, Refund> owed = new LinkedHashMap<>();
+        String checkpoint = tracker.getJournalCheckpoint();
+        boolean checkpointFound = false;
+        if (Files.exists(journalPath)) {
+            try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.equals("S\t" + checkpoint)) {
+                        // Everything committed so far is in the saved goals
+                        unsaved.clear();
+                        checkpointFound = true;
+                    } else {
+                        readRecord(line, open, unsaved, owed);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warning("Failed to read turn-in journal: " + e.getMessage());
+            }
+        }
+        if (!checkpointFound) {
+            // Journals written before checkpoints saved every commit
+            unsaved.clear();
+        }
+
+        List<Entry> interrupted = new ArrayList<>(unsaved.values());
+        interrupted.addAll(open.values());
+        for (Entry entry : interrupted) {
+            if (tracker.isTransactionApplied(entry.id)) {
+                logger.info("Turn-in " + entry.id + " was already credited; marking it committed.");
+            } else if (canRecredit(tracker, entry)) {
+                tracker.depositMaterialsBatch(entry.countsByGoal, entry.id, entry.playerId);
+                logger.info("Re-credited interrupted turn-in " + entry.id + " by " + entry.playerName + ".");
+            } else {
+                owed.put(entry.id, new Refund(entry.id, entry.playerId, entry.items));
+                logger.info("Queued refund of interrupted turn-in " + entry.id + " for " + entry.playerName + ".");
+            }
+            recentIds.put(entry.id, Boolean.TRUE);
+        }
+
+        refunds.clear();
+        for (Refund refund : owed.values()) {
+            refunds.computeIfAbsent(refund.playerId, id -> new ArrayList<>()).add(refund);
+        }
+        tracker.saveAllGoals();
+    }
+
+    private boolean canRecredit(GoalProgressTracker tracker, Entry entry) {
+        for (Map.Entry<String, long[]> counts : entry.countsByGoal.entrySet()) {
+            Goal goal = tracker.getGoal(counts.getKey());
+            if (goal == null || goal.isCompleted() || goal.getState() != State.ACTIVE
+                || goal.getItemMatcher().getSlotCount() != counts.getValue().length) {
+                return false;
+            }
+        }
+        return !entry.countsByGoal.isEmpty();
+    }
+
+    @EventHandler
+    public void onPlayerJoin(PlayerJoinEvent event) {
+        Player player = event.getPlayer();
+        List<Refund> owed = refunds.remove(player.getUniqueId());
+        if (owed == null) {
+            return;
+        }
+        for (Refund refund : owed) {
+            Map<Integer, ItemStack> leftover = player.getInventory().addItem(refund.items.toArray(new ItemStack[0]));
+            for (ItemStack item : leftover.values()) {
+                player.getWorld().dropItemNaturally(player.getLocation(), item);
+            }
+            append("R\t" + refund.id);
+        }
+        player.sendMessage("§eAn interrupted goal turn-in was refunded to you.");
+    }
+
+    /**
+     * Close the journal file
+     */
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.close();
+        } catch (IOException e) {
+            logger.warning("Failed to close turn-in journal: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    private void readRecord(String line, Map<String, Entry> open, Map<String, Entry> unsaved,
+                            Map<String, Refund> owed) {
+        String[] parts = line.split("\t", -1);
+        try {
+            switch (parts[0]) {
+                case "B":
+                    open.put(parts[1], new Entry(parts[1], UUID.fromString(parts[2]), parts[3],
+                        decodeCounts(parts[4]), decodeItems(parts[5])));
+                    break;
+                case "C":
+                    Entry committed = open.remove(parts[1]);
+                    if (committed != null) {
+                        unsaved.put(committed.id, committed);
+                    }
+                    break;
+                case "A":
+                    open.remove(parts[1]);
+                    break;
+                case "F":
+                    owed.put(parts[1], new Refund(parts[1], UUID.fromString(parts[2]), decodeItems(parts[3])));
+                    break;
+                case "R":
+                    owed.remove(parts[1]);
+                    break;
+                default:
+                    break;
+            }
+        } catch (RuntimeException e) {
+            logger.warning("Skipping malformed turn-in journal line: " + e.getMessage());
+        }
+    }
+
+    private void append(String record) {
+        try {
+            if (writer == null) {
+                writer = new BufferedWriter(new OutputStreamWriter(
+                    new FileOutputStream(journalPath.toFile(), true), StandardCharsets.UTF_8));
+            }
+            writer.write(record);
+            writer.write('\n');
+            writer.flush();
+        } catch (IOException e) {
+            logger.warning("Failed to write turn-in journal: " + e.getMessage());
+        }
+    }
+
+    private static String encodeCounts(Map<String, long[]> countsByGoal) {
+        StringBuilder builder = new StringBuilder();
+        for (Map.Entry<String, long[]> entry : countsByGoal.entrySet()) {
+            if (builder.length() > 0) {
+                builder.append(';');
+            }
+            builder.append(entry.getKey()).append('=');
+            long[] counts = entry.getValue();
+            for (int i = 0; i < counts.length; i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(counts[i]);
+            }
+        }
+        return builder.toString();
+    }
+
+    private static Map<String, long[]> decodeCounts(String value) {
+        Map<String, long[]> countsByGoal = new LinkedHashMap<>();
+        if (value.isEmpty()) {
+            return countsByGoal;
+        }
+        for (String part : value.split(";")) {
+            int split = part.lastIndexOf('=');
+            String[] numbers = part.substring(split + 1).split(",");
+            long[] counts = new long[numbers.length];
+            for (int i = 0; i < numbers.length; i++) {
+                counts[i] = Long.parseLong(numbers[i]);
+            }
+            countsByGoal.put(part.substring(0, split), counts);
+        }
+        return countsByGoal;
+    }
+
+    private static String encodeItems(List<ItemStack> items) {
+        StringBuilder builder = new StringBuilder();
+        for (ItemStack item : items) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(Base64.getEncoder().encodeToString(item.serializeAsBytes()));
+        }
+        return builder.toString();
+    }
+
+    private static List<ItemStack> decodeItems(String value) {
+        List<ItemStack> items = new ArrayList<>();
+        if (value.isEmpty()) {
+            return items;
+        }
+        for (String part : value.split(",")) {
+            items.add(ItemStack.deserializeBytes(Base64.getDecoder().decode(part)));
+        }
+        return items;
+    }
+
+    private static class Entry {
+        private final String id;
+        private final UUID playerId;
+        private final String playerName;
+        private final Map<String, long[]> countsByGoal;
+        private final List<ItemStack> items;
+
+        private Entry(String id, UUID playerId, String playerName,
+                      Map<String, long[]> countsByGoal, List<ItemStack> items) {
+            this.id = id;
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.countsByGoal = countsByGoal;
+            this.items = items;
+        }
+    }
+
+    private static class Refund {
+        private final String id;
+        private final UUID playerId;
+        private final List<ItemStack> items;
+
+        private Refund(String id, UUID playerId, List<ItemStack> items) {
+            this.id = id;
+            this.playerId = playerId;
+            this.items = items;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.community.goals.logic;
+
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-player token bucket for turn-in actions (commands, menu clicks, NPC
+ * clicks). Buckets are refilled lazily from the time of the last request,
+ * so no repeating task is needed, and are dropped when the player leaves.
+ */
+public class TurnInRateLimiter implements Listener {
+    private final boolean enabled;
+    private final double capacity;
+    private final double refillPerNano;
+    private final Map<UUID, Bucket> buckets;
+
+    public TurnInRateLimiter(boolean enabled, int burst, double refillPerSecond) {
+        this.enabled = enabled && burst > 0 && refillPerSecond > 0;
+        this.capacity = Math.max(1, burst);
+        this.refillPerNano = refillPerSecond / 1_000_000_000.0;
+        this.buckets = new HashMap<>();
+    }
+
+    /**
+     * Take one token for the player. Returns false (and warns the player once
+     * per throttled streak) if the bucket is empty.
+     */
+    public boolean tryAcquire(Player player) {
+        if (!enabled) {
+            return true;
+        }
+
+        long now = System.nanoTime();
+        Bucket bucket = buckets.get(player.getUniqueId());
+        if (bucket == null) {
+            bucket = new Bucket(capacity, now);
+            buckets.put(player.getUniqueId(), bucket);
+        } else {
+            bucket.tokens = Math.min(capacity, bucket.tokens + (now - bucket.lastRefill) * refillPerNano);
+            bucket.lastRefill = now;
+        }
+
+        if (bucket.tokens >= 1) {
+            bucket.tokens -= 1;
+            bucket.warned = false;
+            return true;
+        }
+        if (!bucket.warned) {
+            bucket.warned = true;
+            player.sendMessage("§cYou're doing that too fast. Please wait a moment.");
+        }
+        return false;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        buckets.remove(event.getPlayer().getUniqueId());
+    }
+
+    private static class Bucket {
+        private double tokens;
+        private long lastRefill;
+        private boolean warned;
+
+        private Bucket(double tokens, long lastRefill) {
+            this.tokens = tokens;
+            this.lastRefill = lastRefill;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.community.goals.logic;
+
+import com.community.goals.ItemMatcher;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Running count of the goal items lying in a turn-in chest, grouped by
+ * matcher slot. Each chest slot's share is remembered, so a click or drag
+ * only re-reads the slots it touched instead of the whole chest.
+ */
+public class TurnInTally {
+    private final ItemMatcher matcher;
+    private final long[] offered;
+    private final long[][] countsBySlot;
+
+    public TurnInTally(ItemMatcher matcher, int size) {
+        this.matcher = matcher;
+        this.offered = new long[matcher.getSlotCount()];
+        this.countsBySlot = new long[size][];
+    }
+
+    /**
+     * Replace a chest slot's share of the tally with what the slot holds now
+     */
+    public void update(int slot, ItemStack item) {
+        long[] previous = countsBySlot[slot];
+        if (previous != null) {
+            for (int i = 0; i < offered.length; i++) {
+                offered[i] -= previous[i];
+            }
+        }
+        long[] counts = count(item);
+        countsBySlot[slot] = counts;
+        if (counts != null) {
+            for (int i = 0; i < offered.length; i++) {
+                offered[i] += counts[i];
+            }
+        }
+    }
+
+    public ItemMatcher getMatcher() {
+        return matcher;
+    }
+
+    /**
+     * Matching items in the chest, indexed by matcher slot
+     */
+    public long[] getOffered() {
+        return offered;
+    }
+
+    /**
+     * Chest slots holding matching items, one bit per slot. The chest is
+     * smaller than 64 slots, so a single long covers it.
+     */
+    public long getSlotMask() {
+        long mask = 0;
+        for (int slot = 0; slot < countsBySlot.length; slot++) {
+            if (countsBySlot[slot] != null) {
+                mask |= 1L << slot;
+            }
+        }
+        return mask;
+    }
+
+    public boolean isEmpty() {
+        for (long count : offered) {
+            if (count > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Matching items in one stack, looking one level into shulker boxes and
+     * bundles the way {@link InventoryTransaction} does, or null for none
+     */
+    private long[] count(ItemStack item) {
+        if (item == null || item.getType().isAir()) {
+            return null;
+        }
+        int slot = matcher.slotOf(item);
+        if (slot != ItemMatcher.REJECTED) {
+            long[] counts = new long[offered.length];
+            counts[slot] = item.getAmount();
+            return counts;
+        }
+        if (!InventoryTransaction.isContainer(item)) {
+            return null;
+        }
+
+        ItemStack[] contents = InventoryTransaction.readContents(item);
+        if (contents == null) {
+            return null;
+        }
+        long[] counts = null;
+        for (ItemStack inner : contents) {
+            if (inner == null) {
+                continue;
+            }
+            int innerSlot = matcher.slotOf(inner);
+            if (innerSlot == ItemMatcher.REJECTED) {
+                continue;
+            }
+            if (counts == null) {
+                counts = new long[offered.length];
+            }
+            counts[innerSlot] += inner.getAmount();
+        }
+        return counts;
+    }
+}
@@ -6,6 +6,10 @@ import de.oliver.fancynpcs.api.NpcData;
 import de.oliver.fancynpcs.api.NpcManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.yaml.snakeyaml.Yaml;
@@ -20,8 +24,14 @@ import java.util.*;
 
 /**
  * Manages FancyNpcs goal NPCs and persistence.
+ *
+ * Whether FancyNpcs is usable, and its NpcManager, are looked up once and
+ * then kept current by plugin enable/disable events, so checks on hot paths
+ * are a field read. If FancyNpcs is enabled after us, stored NPCs are
+ * respawned as soon as it is.
  */
 public class FancyNpcManager {
+    private static final String FANCY_NPCS = "FancyNpcs";
     private static final String STORAGE_FILE = "npcs.yml";
     private static final String CENTRAL_NPC_KEY = "central";
     private static final String CENTRAL_NPCS_KEY = "central-npcs";
@@ -31,6 +41,9 @@ public class FancyNpcManager {
     private final Yaml yaml;
     private final Map<String, StoredNpc> npcByName;
     private final Map<String, StoredNpc> centralNpcs;
+    private final Map<String, NpcRole> rolesByName;
+    private volatile NpcManager npcManager;
+    private volatile boolean available;
 
     public FancyNpcManager(JavaPlugin plugin) {
         this.plugin = plugin;
@@ -38,9 +51,34 @@ public class FancyNpcManager {
         this.yaml = new Yaml();
         this.npcByName = new HashMap<>();
         this.centralNpcs = new HashMap<>();
+        this.rolesByName = new HashMap<>();
+        refreshAvailability();
         loadNPCs();
     }
 
+    /**
+     * Listener that keeps the FancyNpcs availability current. It is a
+     * separate object so registering it never touches FancyNpcs classes.
+     */
+    public Listener getAvailabilityListener() {
+        return new AvailabilityListener();
+    }
+
+    private void refreshAvailability() {
+        NpcManager manager = null;
+        Plugin fancy = Bukkit.getPluginManager().getPlugin(FANCY_NPCS);
+        if (fancy != null && fancy.isEnabled()) {
+            try {
+                FancyNpcsPlugin api = FancyNpcsPlugin.get();
+                manager = api == null ? null : api.getNpcManager();
+            } catch (Exception | LinkageError e) {
+                manager = null;
+            }
+        }
+        npcManager = manager;
+        available = manager != null;
+    }
+
     /**
      * Create a new goal NPC at a location
      */
@@ -73,6 +111,7 @@ public class FancyNpcManager {
         npc.spawnForAll();
 
         npcByName.put(key, new StoredNpc(npcName, goalId, location));
+        rebuildRoleIndex();
         saveNPCs();
 
         return new GoalNPC(npc, goalId, location);
@@ -124,6 +163,7 @@ public class FancyNpcManager {
         npc.spawnForAll();
 
         centralNpcs.put(worldKey, new StoredNpc(npcName, CENTRAL_NPC_KEY, location));
+        rebuildRoleIndex();
         saveNPCs();
     }
 
@@ -133,6 +173,7 @@ public class FancyNpcManager {
         if (stored == null) {
             return false;
         }
+        rebuildRoleIndex();
         String npcName = stored.name;
 
         NpcManager npcManager = getNpcManager();
@@ -183,6 +224,7 @@ public class FancyNpcManager {
         if (stored == null) {
             return false;
         }
+        rebuildRoleIndex();
 
         NpcManager npcManager = getNpcManager();
         if (npcManager != null) {
@@ -222,6 +264,7 @@ public class FancyNpcManager {
             }
         }
         if (removed > 0) {
+            rebuildRoleIndex();
             saveNPCs();
         }
         return removed;
@@ -231,15 +274,7 @@ public class FancyNpcManager {
      * Check if FancyNpcs is available
      */
     public boolean canCreateNPCs() {
-        Plugin fancy = Bukkit.getPluginManager().getPlugin("FancyNpcs");
-        if (fancy == null || !fancy.isEnabled()) {
-            return false;
-        }
-        try {
-            return FancyNpcsPlugin.get() != null && getNpcManager() != null;
-        } catch (Exception e) {
-            return false;
-        }
+        return available;
     }
 
     /**
@@ -262,7 +297,8 @@ public class FancyNpcManager {
     }
 
     public boolean isCentralNpc(String npcName) {
-        return getCentralWorldForNpc(npcName) != null;
+        NpcRole role = getRole(npcName);
+        return role != null && role.isCentral();
     }
 
     public String getCentralNpcName(String worldName) {
@@ -281,22 +317,47 @@ public class FancyNpcManager {
     }
 
     public String getCentralWorldForNpc(String npcName) {
-        String key = normalizeName(npcName);
-        for (Map.Entry<String, StoredNpc> entry : centralNpcs.entrySet()) {
-            StoredNpc stored = entry.getValue();
-            if (stored != null && normalizeName(stored.name).equals(key)) {
-                return entry.getKey();
-            }
-        }
-        return null;
+        NpcRole role = getRole(npcName);
+        return role == null ? null : role.centralWorld;
     }
 
     /**
      * Get goal ID for an NPC name
      */
     public String getGoalIdForNpc(String npcName) {
-        StoredNpc stored = npcByName.get(normalizeName(npcName));
-        return stored == null ? null : stored.goalId;
+        NpcRole role = getRole(npcName);
+        return role == null ? null : role.goalId;
+    }
+
+    /**
+     * What an NPC does when clicked, or null if it is not one of ours. Names
+     * reported by FancyNpcs are the ones we registered and are found without
+     * any normalization; lowercase names also match.
+     */
+    public NpcRole getRole(String npcName) {
+        return npcName == null ? null : rolesByName.get(npcName);
+    }
+
+    /**
+     * Re-index every stored NPC under its registered and its normalized name.
+     * A central NPC wins over a goal NPC of the same name.
+     */
+    private void rebuildRoleIndex() {
+        rolesByName.clear();
+        for (StoredNpc stored : npcByName.values()) {
+            NpcRole role = new NpcRole(null, stored.goalId);
+            rolesByName.put(stored.name, role);
+            rolesByName.put(normalizeName(stored.name), role);
+        }
+        for (Map.Entry<String, StoredNpc> entry : centralNpcs.entrySet()) {
+            StoredNpc stored = entry.getValue();
+            if (stored == null) {
+                continue;
+            }
+            NpcRole role = new NpcRole(entry.getKey(), null);
+            rolesByName.put(stored.name, role);
+            rolesByName.put(normalizeName(stored.name), role);
+        }
     }
 
     /**
@@ -368,6 +429,7 @@ public class FancyNpcManager {
     public void reloadNPCs() {
         npcByName.clear();
         centralNpcs.clear();
+        rolesByName.clear();
         loadNPCs();
 
         NpcManager npcManager = getNpcManager();
@@ -444,6 +506,7 @@ public class FancyNpcManager {
         } catch (IOException e) {
             plugin.getLogger().warning("Failed to load NPCs: " + e.getMessage());
         }
+        rebuildRoleIndex();
 
         if (canCreateNPCs()) {
             ensureNpcInstances();
@@ -492,15 +555,7 @@ public class FancyNpcManager {
     }
 
     private NpcManager getNpcManager() {
-        try {
-            FancyNpcsPlugin api = FancyNpcsPlugin.get();
-            if (api == null) {
-                return null;
-            }
-            return api.getNpcManager();
-        } catch (Exception e) {
-            return null;
-        }
+        return npcManager;
     }
 
     private Npc createNpcFromData(NpcData data) {
@@ -560,6 +615,63 @@ public class FancyNpcManager {
         }
     }
 
+    private class AvailabilityListener implements Listener {
+        @EventHandler
+        public void onPluginEnable(PluginEnableEvent event) {
+            if (!event.getPlugin().getName().equals(FANCY_NPCS)) {
+                return;
+            }
+            boolean wasAvailable = available;
+            refreshAvailability();
+            if (available && !wasAvailable) {
+                // Let FancyNpcs finish its own startup before checking which NPCs exist
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    if (available) {
+                        plugin.getLogger().info("FancyNpcs enabled; restoring goal NPCs.");
+                        ensureNpcInstances();
+                    }
+                });
+            }
+        }
+
+        @EventHandler
+        public void onPluginDisable(PluginDisableEvent event) {
+            if (event.getPlugin().getName().equals(FANCY_NPCS)) {
+                // Still marked enabled while this event runs, so don't look it up again
+                npcManager = null;
+                available = false;
+            }
+        }
+    }
+
+    /**
+     * Either the central NPC of a world or an NPC for a single goal
+     */
+    public static final class NpcRole {
+        private final String centralWorld;
+        private final String goalId;
+
+        private NpcRole(String centralWorld, String goalId) {
+            this.centralWorld = centralWorld;
+            this.goalId = goalId;
+        }
+
+        public boolean isCentral() {
+            return centralWorld != null;
+        }
+
+        /**
+         * Normalized name of the world whose goals menu this NPC opens
+         */
+        public String getCentralWorld() {
+            return centralWorld;
+        }
+
+        public String getGoalId() {
+            return goalId;
+        }
+    }
+
     private static class StoredNpc {
         private final String name;
         private final String goalId;
@@ -1,8 +1,10 @@
 package com.community.goals.npc;
 
 import com.community.goals.Goal;
+import com.community.goals.TextFormat;
 import com.community.goals.gui.GoalGuiManager;
 import com.community.goals.logic.GoalProgressTracker;
+import com.community.goals.logic.TurnInRateLimiter;
 import de.oliver.fancynpcs.api.Npc;
 import de.oliver.fancynpcs.api.events.NpcInteractEvent;
 import org.bukkit.entity.Player;
@@ -16,11 +18,14 @@ public class NPCInteractionHandler implements Listener {
     private final FancyNpcManager npcManager;
     private final GoalProgressTracker progressTracker;
     private final GoalGuiManager guiManager;
+    private final TurnInRateLimiter rateLimiter;
 
-    public NPCInteractionHandler(FancyNpcManager npcManager, GoalProgressTracker progressTracker, GoalGuiManager guiManager) {
+    public NPCInteractionHandler(FancyNpcManager npcManager, GoalProgressTracker progressTracker,
+                                 GoalGuiManager guiManager, TurnInRateLimiter rateLimiter) {
         this.npcManager = npcManager;
         this.progressTracker = progressTracker;
         this.guiManager = guiManager;
+        this.rateLimiter = rateLimiter;
     }
 
     /**
@@ -32,7 +37,9 @@ public class NPCInteractionHandler implements Listener {
         player.sendMessage("§7Description: " + goal.getDescription());
         player.sendMessage("§7World: §f" + goal.getWorldName());
         player.sendMessage("§7Progress: " + goal.getCurrentProgress() + " / " + goal.getTargetProgress());
-        player.sendMessage(String.format("§7Completion: §a%.1f%%", goal.getProgressPercentage()));
+        StringBuilder completion = TextFormat.line().append("§7Completion: §a");
+        TextFormat.appendFixed(completion, goal.getProgressPercentage(), 1).append('%');
+        player.sendMessage(completion.toString());
         if (goal.getRewardExpansion() > 0) {
             player.sendMessage("§7Reward Expansion: §f" + goal.getRewardExpansion() + " blocks");
         }
@@ -69,20 +76,22 @@ public class NPCInteractionHandler implements Listener {
             return;
         }
 
-        String npcName = npc.getData().getName();
-        String centralWorld = npcManager.getCentralWorldForNpc(npcName);
-        if (centralWorld != null) {
-            guiManager.openGoalsMenu(event.getPlayer(), centralWorld);
-            event.setCancelled(true);
+        FancyNpcManager.NpcRole role = npcManager.getRole(npc.getData().getName());
+        if (role == null) {
             return;
         }
 
-        String goalId = npcManager.getGoalIdForNpc(npcName);
-        if (goalId == null) {
+        if (!rateLimiter.tryAcquire(event.getPlayer())) {
+            event.setCancelled(true);
+            return;
+        }
+        if (role.isCentral()) {
+            guiManager.openGoalsMenu(event.getPlayer(), role.getCentralWorld());
+            event.setCancelled(true);
             return;
         }
 
-        Goal goal = progressTracker.getGoal(goalId);
+        Goal goal = progressTracker.getGoal(role.getGoalId());
         if (goal == null) {
             return;
         }
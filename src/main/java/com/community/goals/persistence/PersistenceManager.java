@@ -1,7 +1,10 @@
 package com.community.goals.persistence;
 
 import com.community.goals.Goal;
+import com.community.goals.ItemAcceptanceRules;
+import com.community.goals.MaterialRequirements;
 import com.community.goals.State;
+import org.bukkit.Material;
 import org.yaml.snakeyaml.Yaml;
 
 import java.io.*;
@@ -15,30 +18,51 @@ import java.util.logging.Logger;
  * Manages persistence of goals to YAML files
  */
 public class PersistenceManager {
+    private static final int MAX_APPLIED_TRANSACTIONS = 256;
+
     private final Path dataFolder;
     private final Yaml yaml;
     private final String goalsFile = "goals.yml";
     private final String queueFile = "goal-queue.yml";
+    private final String pregenerationFile = "pregeneration.yml";
     private final Logger logger;
     private final String defaultWorldName;
+    private final Deque<String> appliedTransactions;
+    private final Map<UUID, String> contributorNames;
+    private String journalCheckpoint;
 
     public PersistenceManager(String dataFolderPath, Logger logger, String defaultWorldName) {
         this.dataFolder = Paths.get(dataFolderPath);
         this.yaml = new Yaml();
         this.logger = logger;
         this.defaultWorldName = defaultWorldName;
+        this.appliedTransactions = new ArrayDeque<>();
+        this.contributorNames = new HashMap<>();
         
         try {
             Files.createDirectories(dataFolder);
         } catch (IOException e) {
             logger.warning("Failed to create data folder: " + e.getMessage());
         }
+        loadTurnInRecords();
     }
 
     /**
      * Save all goals to YAML file
      */
     public void saveGoals(Collection<Goal> goals) {
+        saveGoals(goals, null);
+    }
+
+    /**
+     * Save all goals to YAML file, recording the turn-in journal checkpoint
+     * they include. A null checkpoint keeps the last one. Returns false if
+     * the file could not be written.
+     */
+    public boolean saveGoals(Collection<Goal> goals, String checkpoint) {
+        if (checkpoint != null) {
+            journalCheckpoint = checkpoint;
+        }
         try {
             List<Map<String, Object>> goalsList = new ArrayList<>();
             
@@ -49,15 +73,26 @@ public class PersistenceManager {
 
             Map<String, Object> root = new HashMap<>();
             root.put("goals", goalsList);
+            root.put("applied-transactions", new ArrayList<>(appliedTransactions));
+            if (journalCheckpoint != null) {
+                root.put("journal-checkpoint", journalCheckpoint);
+            }
+            Map<String, Object> names = new LinkedHashMap<>();
+            for (Map.Entry<UUID, String> entry : contributorNames.entrySet()) {
+                names.put(entry.getKey().toString(), entry.getValue());
+            }
+            root.put("contributor-names", names);
             root.put("last-updated", System.currentTimeMillis());
 
             Path filePath = dataFolder.resolve(goalsFile);
             try (FileWriter writer = new FileWriter(filePath.toFile())) {
                 yaml.dump(root, writer);
             }
+            return true;
         } catch (IOException e) {
             logger.warning("Failed to save goals: " + e.getMessage());
             e.printStackTrace();
+            return false;
         }
     }
 
@@ -99,6 +134,82 @@ public class PersistenceManager {
         return goals;
     }
 
+    /**
+     * Remember a turn-in transaction id so it is written together with the
+     * progress it credited. Only the most recent ids are kept; they are only
+     * needed to resolve transactions that were open during a crash.
+     */
+    public void recordAppliedTransaction(String transactionId) {
+        appliedTransactions.addLast(transactionId);
+        while (appliedTransactions.size() > MAX_APPLIED_TRANSACTIONS) {
+            appliedTransactions.removeFirst();
+        }
+    }
+
+    /**
+     * Check whether a transaction id was saved with goal progress
+     */
+    public boolean isTransactionApplied(String transactionId) {
+        return appliedTransactions.contains(transactionId);
+    }
+
+    /**
+     * Id of the turn-in journal checkpoint written with the saved goals, or null
+     */
+    public String getJournalCheckpoint() {
+        return journalCheckpoint;
+    }
+
+    /**
+     * Remember the last known name of a contributor, for leaderboards.
+     * Written with the next goal save.
+     */
+    public void recordContributorName(UUID playerId, String name) {
+        if (playerId != null && name != null && !name.isBlank()) {
+            contributorNames.put(playerId, name);
+        }
+    }
+
+    /**
+     * Last known name of a contributor, or null
+     */
+    public String getContributorName(UUID playerId) {
+        return contributorNames.get(playerId);
+    }
+
+    private void loadTurnInRecords() {
+        Path filePath = dataFolder.resolve(goalsFile);
+        if (!Files.exists(filePath)) {
+            return;
+        }
+        try (FileInputStream fis = new FileInputStream(filePath.toFile())) {
+            Map<String, Object> data = yaml.load(fis);
+            if (data == null) {
+                return;
+            }
+            Object checkpoint = data.get("journal-checkpoint");
+            journalCheckpoint = checkpoint != null ? checkpoint.toString() : null;
+            for (Object id : asList(data.get("applied-transactions"))) {
+                if (id != null) {
+                    recordAppliedTransaction(id.toString());
+                }
+            }
+            Object names = data.get("contributor-names");
+            if (names instanceof Map) {
+                for (Map.Entry<?, ?> entry : ((Map<?, ?>) names).entrySet()) {
+                    try {
+                        recordContributorName(UUID.fromString(String.valueOf(entry.getKey())),
+                            String.valueOf(entry.getValue()));
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Skipping invalid contributor id: " + entry.getKey());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to load turn-in records: " + e.getMessage());
+        }
+    }
+
     /**
      * Save a single goal
      */
@@ -133,6 +244,40 @@ public class PersistenceManager {
         map.put("state", goal.getState().name());
         map.put("created-at", goal.getCreatedAt());
         map.put("completed-at", goal.getCompletedAt());
+        MaterialRequirements requirements = goal.getMaterialRequirements();
+        if (!requirements.isEmpty()) {
+            List<Map<String, Object>> materials = new ArrayList<>();
+            for (int i = 0; i < requirements.size(); i++) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("material", requirements.getMaterial(i).name());
+                entry.put("target", requirements.getTarget(i));
+                entry.put("points", requirements.getPoints(i));
+                entry.put("delivered", requirements.getDelivered(i));
+                materials.add(entry);
+            }
+            map.put("materials", materials);
+        }
+        ItemAcceptanceRules rules = goal.getAcceptanceRules();
+        Map<String, Object> accept = new LinkedHashMap<>();
+        List<String> materialNames = new ArrayList<>();
+        for (Material material : rules.getMaterials()) {
+            materialNames.add(material.name());
+        }
+        accept.put("materials", materialNames);
+        accept.put("tags", new ArrayList<>(rules.getTags()));
+        accept.put("custom-model-data", new ArrayList<>(rules.getCustomModelData()));
+        accept.put("pdc-keys", new ArrayList<>(rules.getPdcKeys()));
+        map.put("accept", accept);
+        if (goal.getContributionCap() > 0) {
+            map.put("contribution-cap", goal.getContributionCap());
+        }
+        if (!goal.getContributions().isEmpty()) {
+            Map<String, Object> contributions = new LinkedHashMap<>();
+            for (Map.Entry<UUID, Long> entry : goal.getContributions().entrySet()) {
+                contributions.put(entry.getKey().toString(), entry.getValue());
+            }
+            map.put("contributions", contributions);
+        }
         return map;
     }
 
@@ -164,6 +309,23 @@ public class PersistenceManager {
                 goal.setState(State.valueOf(stateName));
             }
 
+            loadMaterialRequirements(goal, map.get("materials"));
+            if (map.containsKey("accept")) {
+                loadAcceptanceRules(goal, map.get("accept"));
+            } else if (!map.containsKey("materials")) {
+                Material legacy = ItemAcceptanceRules.legacyMaterialFor(id);
+                if (legacy != null) {
+                    goal.getAcceptanceRules().addMaterial(legacy);
+                    logger.info("Goal " + id + " had no acceptance rules; now accepting " + legacy.name());
+                }
+            }
+
+            Object capRaw = map.get("contribution-cap");
+            if (capRaw instanceof Number) {
+                goal.setContributionCap(((Number) capRaw).longValue());
+            }
+            loadContributions(goal, map.get("contributions"));
+
             return goal;
         } catch (Exception e) {
             logger.warning("Failed to deserialize goal from map: " + e.getMessage());
@@ -171,6 +333,87 @@ public class PersistenceManager {
         }
     }
 
+    /**
+     * Restore per-player contribution counters
+     */
+    private void loadContributions(Goal goal, Object raw) {
+        if (!(raw instanceof Map)) {
+            return;
+        }
+        for (Map.Entry<?, ?> entry : ((Map<?, ?>) raw).entrySet()) {
+            if (!(entry.getValue() instanceof Number)) {
+                continue;
+            }
+            try {
+                goal.addContribution(UUID.fromString(String.valueOf(entry.getKey())),
+                    ((Number) entry.getValue()).longValue());
+            } catch (IllegalArgumentException e) {
+                logger.warning("Skipping invalid contributor id for goal " + goal.getId() + ": " + entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Restore per-material requirements and delivered counters
+     */
+    private void loadMaterialRequirements(Goal goal, Object raw) {
+        if (!(raw instanceof List)) {
+            return;
+        }
+        MaterialRequirements requirements = goal.getMaterialRequirements();
+        for (Object entryObj : (List<?>) raw) {
+            if (!(entryObj instanceof Map)) {
+                continue;
+            }
+            Map<?, ?> entry = (Map<?, ?>) entryObj;
+            Material material = Material.matchMaterial(String.valueOf(entry.get("material")));
+            if (material == null) {
+                logger.warning("Unknown material in goal " + goal.getId() + ": " + entry.get("material"));
+                continue;
+            }
+            long target = entry.get("target") instanceof Number ? ((Number) entry.get("target")).longValue() : 0L;
+            long points = entry.get("points") instanceof Number ? ((Number) entry.get("points")).longValue() : 1L;
+            requirements.setRequirement(material, Math.max(0, target), Math.max(1, points));
+            if (entry.get("delivered") instanceof Number) {
+                requirements.setDelivered(requirements.indexOf(material), ((Number) entry.get("delivered")).longValue());
+            }
+        }
+    }
+
+    /**
+     * Restore explicit item acceptance rules
+     */
+    private void loadAcceptanceRules(Goal goal, Object raw) {
+        if (!(raw instanceof Map)) {
+            return;
+        }
+        Map<?, ?> accept = (Map<?, ?>) raw;
+        ItemAcceptanceRules rules = goal.getAcceptanceRules();
+        for (Object value : asList(accept.get("materials"))) {
+            Material material = Material.matchMaterial(String.valueOf(value));
+            if (material == null) {
+                logger.warning("Unknown material in goal " + goal.getId() + ": " + value);
+                continue;
+            }
+            rules.addMaterial(material);
+        }
+        for (Object value : asList(accept.get("tags"))) {
+            rules.addTag(String.valueOf(value));
+        }
+        for (Object value : asList(accept.get("custom-model-data"))) {
+            if (value instanceof Number) {
+                rules.addCustomModelData(((Number) value).intValue());
+            }
+        }
+        for (Object value : asList(accept.get("pdc-keys"))) {
+            rules.addPdcKey(String.valueOf(value));
+        }
+    }
+
+    private List<?> asList(Object value) {
+        return value instanceof List ? (List<?>) value : Collections.emptyList();
+    }
+
     /**
      * Check if goals file exists
      */
@@ -272,6 +515,49 @@ public class PersistenceManager {
         return queues;
     }
 
+    /**
+     * Save chunk pre-generation progress per world
+     */
+    public void savePregeneration(Map<String, Map<String, Object>> worlds) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("worlds", worlds);
+        root.put("last-updated", System.currentTimeMillis());
+
+        Path filePath = dataFolder.resolve(pregenerationFile);
+        try (FileWriter writer = new FileWriter(filePath.toFile())) {
+            yaml.dump(root, writer);
+        } catch (IOException e) {
+            logger.warning("Failed to save chunk pre-generation progress: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Load chunk pre-generation progress per world
+     */
+    @SuppressWarnings("unchecked")
+    public Map<String, Map<String, Object>> loadPregeneration() {
+        Map<String, Map<String, Object>> worlds = new LinkedHashMap<>();
+        Path filePath = dataFolder.resolve(pregenerationFile);
+        if (!Files.exists(filePath)) {
+            return worlds;
+        }
+
+        try (FileInputStream fis = new FileInputStream(filePath.toFile())) {
+            Map<String, Object> data = yaml.load(fis);
+            Object rawWorlds = data == null ? null : data.get("worlds");
+            if (rawWorlds instanceof Map) {
+                for (Map.Entry<String, Object> entry : ((Map<String, Object>) rawWorlds).entrySet()) {
+                    if (entry.getValue() instanceof Map) {
+                        worlds.put(entry.getKey(), (Map<String, Object>) entry.getValue());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warning("Failed to load chunk pre-generation progress: " + e.getMessage());
+        }
+        return worlds;
+    }
+
     /**
      * Clear all goals
      */
@@ -2,32 +2,46 @@ package com.community.goals.placeholders;
 
 import com.community.goals.CommunityGoalsPlugin;
 import com.community.goals.Goal;
+import com.community.goals.TextFormat;
 import com.community.goals.features.BorderManagerRegistry;
+import com.community.goals.features.ContributionLeaderboard;
+import com.community.goals.logic.ActiveGoalIndex;
 import com.community.goals.logic.GoalProgressTracker;
-import com.community.goals.logic.GoalQueueManager;
 import me.clip.placeholderapi.expansion.PlaceholderExpansion;
 import org.bukkit.entity.Player;
 
-import java.util.Comparator;
-import java.util.List;
 import java.util.Locale;
-
-public class GoalExpansion extends PlaceholderExpansion {
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * %goal_*% placeholders for the current goal of the player's world.
+ *
+ * The current goal comes from the shared {@link ActiveGoalIndex}. Its
+ * formatted values are cached with the goal's version and only rebuilt when
+ * the goal changes, so a lookup is a map read and a string return. Entries
+ * are dropped when their goal is deleted.
+ * Leaderboard values come preformatted from {@link ContributionLeaderboard}.
+ */
+public class GoalExpansion extends PlaceholderExpansion implements GoalProgressTracker.ProgressListener {
     private final CommunityGoalsPlugin plugin;
-    private final GoalProgressTracker tracker;
-    private final GoalQueueManager queueManager;
+    private final ActiveGoalIndex goalIndex;
     private final BorderManagerRegistry borderRegistry;
+    private final ContributionLeaderboard leaderboard;
+    // Placeholder requests may come from other threads than the one firing goal events
+    private final Map<String, FormattedGoal> formatted;
 
     public GoalExpansion(
             CommunityGoalsPlugin plugin,
-            GoalProgressTracker tracker,
-            GoalQueueManager queueManager,
-            BorderManagerRegistry borderRegistry
+            ActiveGoalIndex goalIndex,
+            BorderManagerRegistry borderRegistry,
+            ContributionLeaderboard leaderboard
     ) {
         this.plugin = plugin;
-        this.tracker = tracker;
-        this.queueManager = queueManager;
+        this.goalIndex = goalIndex;
         this.borderRegistry = borderRegistry;
+        this.leaderboard = leaderboard;
+        this.formatted = new ConcurrentHashMap<>();
     }
 
     @Override
@@ -53,12 +67,15 @@ public class GoalExpansion extends PlaceholderExpansion {
     @Override
     public String onPlaceholderRequest(Player player, String params) {
         String worldName = getWorldName(player);
-        Goal goal = getActiveGoalForWorld(worldName);
+        Goal goal = worldName == null ? null : goalIndex.getCurrentGoal(worldName);
         if (goal == null && borderRegistry != null) {
-            goal = getActiveGoalForWorld(borderRegistry.getDefaultWorld());
+            goal = goalIndex.getCurrentGoal(borderRegistry.getDefaultWorld());
         }
 
         String key = params == null ? "" : params.toLowerCase(Locale.ROOT);
+        if (key.startsWith("top_") || key.startsWith("my_")) {
+            return getLeaderboardValue(player, goal, key);
+        }
         if (goal == null) {
             switch (key) {
                 case "progress":
@@ -79,15 +96,15 @@ public class GoalExpansion extends PlaceholderExpansion {
             case "description":
                 return goal.getDescription();
             case "progress":
-                return String.valueOf(goal.getCurrentProgress());
+                return getFormatted(goal).progress;
             case "required":
-                return String.valueOf(goal.getTargetProgress());
+                return getFormatted(goal).required;
             case "remaining":
-                return String.valueOf(Math.max(0L, goal.getTargetProgress() - goal.getCurrentProgress()));
+                return getFormatted(goal).remaining;
             case "percent":
-                return formatPercent(goal.getProgressPercentage());
+                return getFormatted(goal).percent;
             case "state":
-                return goal.getState().name().toLowerCase(Locale.ROOT);
+                return getFormatted(goal).state;
             case "world":
                 return goal.getWorldName();
             default:
@@ -95,37 +112,123 @@ public class GoalExpansion extends PlaceholderExpansion {
         }
     }
 
-    private String getWorldName(Player player) {
-        if (player == null || player.getWorld() == null) {
-            return borderRegistry != null ? borderRegistry.getDefaultWorld() : null;
+    /**
+     * top_<n>_name, top_<n>_amount, my_contribution and my_rank for the current goal
+     */
+    private String getLeaderboardValue(Player player, Goal goal, String key) {
+        boolean amount = key.endsWith("_amount") || key.equals("my_contribution");
+        if (goal == null || leaderboard == null) {
+            return amount ? "0" : "";
         }
-        return player.getWorld().getName();
+        ContributionLeaderboard.Snapshot snapshot = leaderboard.getSnapshot(goal);
+        String value;
+        if (key.equals("my_contribution")) {
+            value = player == null ? null : snapshot.getAmount(player.getUniqueId());
+        } else if (key.equals("my_rank")) {
+            value = player == null ? null : snapshot.getRank(player.getUniqueId());
+            return value == null ? "-" : value;
+        } else {
+            int position = parsePosition(key);
+            if (key.endsWith("_name")) {
+                value = snapshot.getName(position);
+            } else if (amount) {
+                value = snapshot.getAmount(position);
+            } else {
+                return "";
+            }
+        }
+        if (value == null) {
+            return amount ? "0" : "";
+        }
+        return value;
     }
 
-    private Goal getActiveGoalForWorld(String worldName) {
-        if (worldName == null || worldName.isBlank()) {
-            return null;
+    /**
+     * Read n from "top_<n>_..." without allocating; 0 if it is not a number
+     */
+    private static int parsePosition(String key) {
+        int position = 0;
+        for (int i = 4; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c == '_') {
+                return position;
+            }
+            if (c < '0' || c > '9' || position > 100_000) {
+                return 0;
+            }
+            position = position * 10 + (c - '0');
         }
+        return 0;
+    }
 
-        if (queueManager != null && queueManager.isEnabled()) {
-            List<String> queue = queueManager.getQueue(worldName);
-            if (queue != null && !queue.isEmpty()) {
-                Goal queuedGoal = tracker.getGoal(queue.get(0));
-                if (queuedGoal != null && !queuedGoal.isCompleted()) {
-                    return queuedGoal;
-                }
-            }
+    /**
+     * Formatted values of a goal, rebuilt only after its version moves
+     */
+    private FormattedGoal getFormatted(Goal goal) {
+        FormattedGoal cached = formatted.get(goal.getId());
+        if (cached != null && cached.goal == goal && cached.version == goal.getVersion()) {
+            return cached;
         }
+        cached = new FormattedGoal(goal);
+        formatted.put(goal.getId(), cached);
+        return cached;
+    }
+
+    @Override
+    public void onProgressUpdated(Goal goal, long previousProgress, long amountAdded) {
+    }
+
+    @Override
+    public void onGoalCompleted(Goal goal) {
+    }
+
+    @Override
+    public void onGoalCreated(Goal goal) {
+    }
 
-        List<Goal> activeGoals = tracker.getActiveGoalsForWorld(worldName);
-        activeGoals.sort(Comparator.comparingLong(Goal::getCreatedAt));
-        return activeGoals.isEmpty() ? null : activeGoals.get(0);
+    @Override
+    public void onGoalDeleted(Goal goal) {
+        formatted.remove(goal.getId());
     }
 
-    private String formatPercent(double percent) {
+    @Override
+    public void onGoalUpdated(Goal goal) {
+    }
+
+    private String getWorldName(Player player) {
+        if (player == null || player.getWorld() == null) {
+            return borderRegistry != null ? borderRegistry.getDefaultWorld() : null;
+        }
+        return player.getWorld().getName();
+    }
+
+    private static String formatPercent(double percent) {
         if (Double.isNaN(percent) || Double.isInfinite(percent)) {
             return "0";
         }
-        return String.format(Locale.US, "%.1f", percent);
+        return TextFormat.percent(percent);
+    }
+
+    /**
+     * A goal's numeric values formatted at one goal version
+     */
+    private static class FormattedGoal {
+        private final Goal goal;
+        private final long version;
+        private final String progress;
+        private final String required;
+        private final String remaining;
+        private final String percent;
+        private final String state;
+
+        private FormattedGoal(Goal goal) {
+            this.goal = goal;
+            this.version = goal.getVersion();
+            this.progress = String.valueOf(goal.getCurrentProgress());
+            this.required = String.valueOf(goal.getTargetProgress());
+            this.remaining = String.valueOf(Math.max(0L, goal.getTargetProgress() - goal.getCurrentProgress()));
+            this.percent = formatPercent(goal.getProgressPercentage());
+            this.state = goal.getState().name().toLowerCase(Locale.ROOT);
+        }
     }
 }
@@ -52,19 +52,19 @@ public class WorldBorderExpansion extends PlaceholderExpansion {
             return "";
         }
 
-        BorderExpansionManager.BorderInfo info = manager.getInfo();
+        BorderExpansionManager.BorderSnapshot snapshot = manager.getSnapshot();
         String key = params == null ? "" : params.toLowerCase(Locale.ROOT);
         switch (key) {
             case "size":
-                return formatNumber(manager.getCurrentSize());
+                return snapshot.sizeText;
             case "center_x":
-                return formatNumber(info.centerX);
+                return snapshot.centerXText;
             case "center_z":
-                return formatNumber(info.centerZ);
+                return snapshot.centerZText;
             case "expansion":
-                return formatNumber(info.expansionAmount);
+                return snapshot.expansionText;
             case "world":
-                return info.worldName;
+                return snapshot.worldName;
             default:
                 return "";
         }
@@ -76,15 +76,4 @@ public class WorldBorderExpansion extends PlaceholderExpansion {
         }
         return player.getWorld().getName();
     }
-
-    private String formatNumber(double value) {
-        if (Double.isNaN(value) || Double.isInfinite(value)) {
-            return "0";
-        }
-        long rounded = Math.round(value);
-        if (Math.abs(value - rounded) < 0.0001) {
-            return String.valueOf(rounded);
-        }
-        return String.format(Locale.US, "%.1f", value);
-    }
 }